@@ -0,0 +1,146 @@
+package com.albumstore.api.db;
+
+import com.albumstore.api.model.AlbumInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AlbumDAO/ReviewDAO针对内存数据库（H2 MySQL兼容模式）的开销
+ * 通过albumstore.*系统属性覆盖配置，关闭缓存、布隆过滤器和搜索索引，使每次调用都访问数据库；
+ * 测得的是DAO代码、连接池和JDBC的开销，不代表MySQL服务器的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Dalbumstore.db.driverClassName=org.h2.Driver",
+        "-Dalbumstore.db.url=jdbc:h2:mem:albumstore;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR;DB_CLOSE_DELAY=-1",
+        "-Dalbumstore.db.username=sa",
+        "-Dalbumstore.db.password=",
+        "-Dalbumstore.db.reader.url=",
+        "-Dalbumstore.cache.album.enabled=false",
+        "-Dalbumstore.filter.album.enabled=false",
+        "-Dalbumstore.search.album.enabled=false",
+        "-Dalbumstore.id.nodeId=1"
+})
+public class AlbumDaoBenchmark {
+    private static final byte[] IMAGE = new byte[4096];
+
+    @Param({"10000"})
+    private int albumCount;
+
+    private AlbumDAO albumDAO;
+    private ReviewDAO reviewDAO;
+    private List<String> albumIds;
+
+    @Setup
+    public void setUp() throws SQLException {
+        try (Connection conn = DBConnectionPool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS albums (" +
+                    "id VARCHAR(255) PRIMARY KEY, " +
+                    "artist VARCHAR(255) NOT NULL, " +
+                    "title VARCHAR(255) NOT NULL, " +
+                    "year VARCHAR(50) NOT NULL, " +
+                    "image_data MEDIUMBLOB NULL, " +
+                    "image_hash CHAR(64) NULL, " +
+                    "image_size BIGINT NULL, " +
+                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_albums_created_id ON albums (created_at, id)");
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS album_reviews (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "album_id VARCHAR(255) NOT NULL, " +
+                    "review_type VARCHAR(10) NOT NULL, " +
+                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_album_review ON album_reviews (album_id, review_type)");
+        }
+
+        albumDAO = new AlbumDAO();
+        reviewDAO = new ReviewDAO();
+        albumIds = new ArrayList<>(albumCount);
+
+        for (int i = 0; i < albumCount; i++) {
+            String albumId = albumDAO.saveAlbum(new AlbumInfo("Artist " + i, "Title " + i, "2024"), IMAGE);
+            if (albumId == null) {
+                throw new IllegalStateException("Failed to seed album " + i);
+            }
+            albumIds.add(albumId);
+        }
+
+        try (Connection conn = DBConnectionPool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO album_reviews (album_id, review_type) VALUES (?, ?)")) {
+            for (int i = 0; i < albumCount * 5; i++) {
+                pstmt.setString(1, albumIds.get(i % albumCount));
+                pstmt.setString(2, i % 3 == 0 ? "dislike" : "like");
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        DBConnectionPool.closePool();
+    }
+
+    private String randomAlbumId() {
+        return albumIds.get(ThreadLocalRandom.current().nextInt(albumIds.size()));
+    }
+
+    @Benchmark
+    public AlbumInfo getAlbumById() {
+        return albumDAO.getAlbumById(randomAlbumId());
+    }
+
+    @Benchmark
+    public boolean albumExists() {
+        return albumDAO.albumExists(randomAlbumId());
+    }
+
+    @Benchmark
+    public Map<String, AlbumInfo> getAlbumsByIds() {
+        List<String> ids = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            ids.add(randomAlbumId());
+        }
+        return albumDAO.getAlbumsByIds(ids);
+    }
+
+    @Benchmark
+    public Object listAlbumsFirstPage() {
+        return albumDAO.listAlbums(null, null, 50);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getReviewStats() {
+        return reviewDAO.getReviewStats(randomAlbumId());
+    }
+
+    @Benchmark
+    public String saveAlbum() {
+        return albumDAO.saveAlbum(new AlbumInfo("Artist", "Title", "2024"), IMAGE);
+    }
+}
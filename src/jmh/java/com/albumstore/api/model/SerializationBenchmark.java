@@ -0,0 +1,112 @@
+package com.albumstore.api.model;
+
+import com.albumstore.api.util.JsonBodyWriter;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应DTO的序列化开销：Gson（原来的写法，作为对照）与JsonBodyWriter直接写字节
+ * 使用 -prof gc 可以同时看到每次操作的分配量
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private final Gson gson = new Gson();
+    private final AlbumInfo albumInfo = new AlbumInfo("Sex Pistols", "Never Mind The Bollocks!", "1977");
+    private final ImageMetaData imageMetaData = new ImageMetaData("0A87SPE0M0N86", "3475");
+    private final ErrorMsg errorMsg = new ErrorMsg("Album not found");
+    private final String albumInfoJson = gson.toJson(albumInfo);
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    @Benchmark
+    public String albumInfoToJson() {
+        return gson.toJson(albumInfo);
+    }
+
+    @Benchmark
+    public AlbumInfo albumInfoFromJson() {
+        return gson.fromJson(albumInfoJson, AlbumInfo.class);
+    }
+
+    @Benchmark
+    public String imageMetaDataToJson() {
+        return gson.toJson(imageMetaData);
+    }
+
+    @Benchmark
+    public String errorMsgToJson() {
+        return gson.toJson(errorMsg);
+    }
+
+    @Benchmark
+    public String newErrorMsgToJson() {
+        return gson.toJson(new ErrorMsg("Album not found"));
+    }
+
+    /**
+     * 与handleGetReviewStats相同：构造Map并把计数转为字符串
+     */
+    @Benchmark
+    public String reviewStatsToJson() {
+        Map<String, String> responseMap = new HashMap<>();
+        responseMap.put("likes", String.valueOf(1234));
+        responseMap.put("dislikes", String.valueOf(56));
+        return gson.toJson(responseMap);
+    }
+
+    @Benchmark
+    public int albumInfoWriter() throws IOException {
+        JsonBodyWriter writer = JsonBodyWriter.get().albumInfo(albumInfo);
+        writer.writeTo(sink);
+        return writer.length();
+    }
+
+    @Benchmark
+    public int imageMetaDataWriter() throws IOException {
+        JsonBodyWriter writer = JsonBodyWriter.get().imageMetaData("0A87SPE0M0N86", "3475");
+        writer.writeTo(sink);
+        return writer.length();
+    }
+
+    @Benchmark
+    public int errorMsgWriter() throws IOException {
+        JsonBodyWriter writer = JsonBodyWriter.get().errorMsg("Album 0A87SPE0M0N86 not found");
+        writer.writeTo(sink);
+        return writer.length();
+    }
+
+    /**
+     * 与sendError相同：固定文案直接使用预编码的字节
+     */
+    @Benchmark
+    public int preEncodedMessage() throws IOException {
+        byte[] body = JsonBodyWriter.preEncoded("Album not found");
+        sink.write(body);
+        return body.length;
+    }
+
+    @Benchmark
+    public int reviewStatsWriter() throws IOException {
+        JsonBodyWriter writer = JsonBodyWriter.get().reviewStats(1234, 56);
+        writer.writeTo(sink);
+        return writer.length();
+    }
+}
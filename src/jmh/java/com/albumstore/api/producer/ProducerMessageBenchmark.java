@@ -0,0 +1,68 @@
+package com.albumstore.api.producer;
+
+import com.google.gson.Gson;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProducerClient构造消息的开销（不发送）：单条消息JSON、批量消息JSON，以及完整的HttpPost请求对象
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProducerMessageBenchmark {
+    private static final String PRODUCER_URL = "http://localhost:8081/publish";
+
+    @Param({"100"})
+    private int batchSize;
+
+    private final Gson gson = new Gson();
+    private List<ProducerClient.PendingMessage> batch;
+
+    @Setup
+    public void setUp() {
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(new ProducerClient.PendingMessage(i % 2 == 0 ? "like" : "dislike",
+                    "0A87SPE0M0N" + (10 + i % 90), new CompletableFuture<>()));
+        }
+    }
+
+    @Benchmark
+    public String messageJson() {
+        return ProducerClient.toMessageJson(gson, "like", "0A87SPE0M0N86");
+    }
+
+    @Benchmark
+    public HttpPost messageRequest() throws UnsupportedEncodingException {
+        HttpPost httpPost = new HttpPost(PRODUCER_URL);
+        httpPost.setHeader("Content-Type", "application/json");
+        httpPost.setEntity(new StringEntity(ProducerClient.toMessageJson(gson, "like", "0A87SPE0M0N86")));
+        return httpPost;
+    }
+
+    @Benchmark
+    public String batchJson() {
+        return ProducerClient.toBatchJson(gson, batch);
+    }
+}
@@ -0,0 +1,196 @@
+package com.albumstore.api.servlet;
+
+import com.albumstore.api.util.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AlbumServlet请求分发的开销：原来doGet/doPost中的URI字符串匹配和handleReview中的uri.split("/")（legacy*），
+ * 与预编译路由表Router（router*）对比。每次调用按顺序分发下面所有路径，结果为单个请求的平均耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestDispatchBenchmark {
+    // 原来的判断直接在getRequestURI上做startsWith，只在根context下成立；两边使用相同的URI才有可比性
+    private static final String CONTEXT_PATH = "";
+    private static final String ALBUM_ID = "0A87SPE0M0N86";
+
+    // {requestURI, pathInfo, ids参数}
+    private final String[][] getRequests = {
+            {CONTEXT_PATH + "/albums/" + ALBUM_ID, "/" + ALBUM_ID, null},
+            {CONTEXT_PATH + "/albums/" + ALBUM_ID + "/image", "/" + ALBUM_ID + "/image", null},
+            {CONTEXT_PATH + "/albums/search", "/search", null},
+            {CONTEXT_PATH + "/albums", null, ALBUM_ID + ",0A87SPE0M0N87"},
+            {CONTEXT_PATH + "/albums", null, null},
+            {CONTEXT_PATH + "/review/top", "/top", null},
+            {CONTEXT_PATH + "/review/" + ALBUM_ID, "/" + ALBUM_ID, null},
+            {CONTEXT_PATH + "/admin/metrics", "/metrics", null},
+    };
+    private static final int GET_COUNT = 8;
+
+    private final String[] postRequests = {
+            CONTEXT_PATH + "/albums",
+            CONTEXT_PATH + "/albums/bulk",
+            CONTEXT_PATH + "/review/like/" + ALBUM_ID,
+            CONTEXT_PATH + "/review/dislike/" + ALBUM_ID,
+            CONTEXT_PATH + "/review/stats",
+            CONTEXT_PATH + "/admin/reset",
+    };
+    private static final int POST_COUNT = 6;
+
+    private final Router router = buildRouter();
+
+    /**
+     * 确认两种分发方式都命中了每个请求，避免比较的是提前失败的路径
+     */
+    @Setup
+    public void verifyDispatch() {
+        for (String[] request : getRequests) {
+            if (LegacyDispatch.dispatchGet(request[0], request[1], request[2] != null) == 0
+                    || router.match("GET", request[0], CONTEXT_PATH.length(), request[2] != null) == null) {
+                throw new IllegalStateException("GET " + request[0] + " is not dispatched");
+            }
+        }
+        for (String uri : postRequests) {
+            if (LegacyDispatch.dispatchPost(uri) == 0
+                    || router.match("POST", uri, CONTEXT_PATH.length(), false) == null) {
+                throw new IllegalStateException("POST " + uri + " is not dispatched");
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GET_COUNT)
+    public void legacyDispatchGet(Blackhole blackhole) {
+        for (String[] request : getRequests) {
+            blackhole.consume(LegacyDispatch.dispatchGet(request[0], request[1], request[2] != null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POST_COUNT)
+    public void legacyDispatchPost(Blackhole blackhole) {
+        for (String uri : postRequests) {
+            blackhole.consume(LegacyDispatch.dispatchPost(uri));
+        }
+    }
+
+    @Benchmark
+    public void legacyParseReviewPath(Blackhole blackhole) {
+        String[] pathParts = postRequests[2].split("/");
+        blackhole.consume(pathParts[pathParts.length - 2]);
+        blackhole.consume(pathParts[pathParts.length - 1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GET_COUNT)
+    public void routerDispatchGet(Blackhole blackhole) {
+        for (String[] request : getRequests) {
+            blackhole.consume(router.match("GET", request[0], CONTEXT_PATH.length(), request[2] != null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POST_COUNT)
+    public void routerDispatchPost(Blackhole blackhole) {
+        for (String uri : postRequests) {
+            blackhole.consume(router.match("POST", uri, CONTEXT_PATH.length(), false));
+        }
+    }
+
+    @Benchmark
+    public void routerParseReviewPath(Blackhole blackhole) {
+        Router.RouteMatch match = router.match("POST", postRequests[2], CONTEXT_PATH.length(), false);
+        blackhole.consume(match.get("type"));
+        blackhole.consume(match.get("albumId"));
+    }
+
+    /**
+     * 与AlbumServlet.buildRouter相同的路由和注册顺序，handler为空操作
+     */
+    private static Router buildRouter() {
+        Router.Handler noop = (request, response, match, logDetails) -> {
+        };
+        return new Router()
+                .post(Constants.ALBUMS_BULK_PATH, null, noop)
+                .post(Constants.ALBUMS_PATH, null, noop)
+                .post(Constants.REVIEW_STATS_PATH, null, noop)
+                .post(Constants.REVIEW_PATH + "/{type}/{albumId}", null, noop)
+                .post(Constants.ADMIN_RESET_PATH, null, noop)
+                .get(Constants.ALBUMS_PATH + Constants.ALBUMS_SEARCH_PATH_INFO, null, noop)
+                .get(Constants.ALBUMS_PATH + "/{albumId}" + Constants.IMAGE_PATH_SUFFIX, null, noop)
+                .get(Constants.ALBUMS_PATH + "/{albumId}", null, noop)
+                .get(Constants.ALBUMS_PATH, "ids", null, noop)
+                .get(Constants.ALBUMS_PATH, null, noop)
+                .get(Constants.REVIEW_PATH + Constants.REVIEW_TOP_PATH_INFO, null, noop)
+                .get(Constants.REVIEW_PATH + "/{albumId}", null, noop)
+                .get(Constants.ADMIN_POOL_PATH, null, noop)
+                .get(Constants.ADMIN_METRICS_PATH, null, noop);
+    }
+
+    /**
+     * 与AlbumServlet.doGet/doPost相同的判断顺序和条件，返回命中的分支序号
+     */
+    static final class LegacyDispatch {
+        private LegacyDispatch() {
+        }
+
+        static int dispatchGet(String uri, String pathInfo, boolean hasIds) {
+            if (uri.startsWith(Constants.ALBUMS_PATH) && pathInfo != null
+                    && pathInfo.endsWith(Constants.IMAGE_PATH_SUFFIX)
+                    && pathInfo.length() > Constants.IMAGE_PATH_SUFFIX.length() + 1) {
+                return 1;
+            } else if (uri.startsWith(Constants.ALBUMS_PATH)
+                    && Constants.ALBUMS_SEARCH_PATH_INFO.equals(pathInfo)) {
+                return 2;
+            } else if (uri.startsWith(Constants.ALBUMS_PATH) && pathInfo != null && !pathInfo.equals("/")) {
+                return 3;
+            } else if (uri.startsWith(Constants.ALBUMS_PATH) && (pathInfo == null || pathInfo.equals("/"))
+                    && hasIds) {
+                return 4;
+            } else if (uri.startsWith(Constants.ALBUMS_PATH) && (pathInfo == null || pathInfo.equals("/"))) {
+                return 5;
+            } else if (uri.startsWith(Constants.REVIEW_PATH) && Constants.REVIEW_TOP_PATH_INFO.equals(pathInfo)) {
+                return 6;
+            } else if (uri.startsWith(Constants.REVIEW_PATH) && pathInfo != null && !pathInfo.equals("/")) {
+                return 7;
+            } else if (uri.endsWith(Constants.ADMIN_POOL_PATH)) {
+                return 8;
+            } else if (uri.endsWith(Constants.ADMIN_METRICS_PATH)) {
+                return 9;
+            }
+            return 0;
+        }
+
+        static int dispatchPost(String uri) {
+            if (uri.endsWith(Constants.ALBUMS_BULK_PATH)) {
+                return 1;
+            } else if (uri.endsWith(Constants.ALBUMS_PATH)) {
+                return 2;
+            } else if (uri.endsWith(Constants.REVIEW_STATS_PATH)) {
+                return 3;
+            } else if (uri.contains(Constants.REVIEW_PATH)) {
+                return 4;
+            } else if (uri.endsWith(Constants.ADMIN_RESET_PATH)) {
+                return 5;
+            }
+            return 0;
+        }
+    }
+}
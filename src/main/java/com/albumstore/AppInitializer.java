@@ -1,6 +1,14 @@
 package com.albumstore;
 
+import com.albumstore.api.cache.AlbumCache;
+import com.albumstore.api.cache.AlbumIdFilter;
+import com.albumstore.api.cache.AlbumSearchIndex;
+import com.albumstore.api.cache.ReviewCounterStore;
+import com.albumstore.api.cache.ReviewRanking;
+import com.albumstore.api.db.AlbumDAO;
+import com.albumstore.api.config.AppConfig;
 import com.albumstore.api.db.DBConnectionPool;
+import com.albumstore.api.db.ReviewDAO;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -8,12 +16,22 @@ import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.annotation.WebListener;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @WebListener
 public class AppInitializer implements ServletContextListener {
     private static final Logger LOGGER = LogManager.getLogger(AppInitializer.class);
+    private static final String REVIEW_COUNT_TRIGGER = "trg_album_reviews_count";
+    private static final long INDEX_WARM_UP_RETRY_MS = 30000;
+
+    // 启动预热失败后在后台重试加载专辑索引，成功后停止
+    private ScheduledExecutorService indexWarmUpRetry;
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
@@ -23,6 +41,17 @@ public class AppInitializer implements ServletContextListener {
             // 确保数据库表存在
             createTablesIfNotExist();
 
+            // 确保评论计数表由触发器维护
+            setUpReviewCounters();
+
+            // 预热专辑ID过滤器和搜索索引，失败时在后台重试
+            if (!warmUpAlbumIndexes()) {
+                scheduleIndexWarmUpRetry();
+            }
+
+            // 在后台加载评论排行榜
+            ReviewRanking.getInstance().start();
+
             LOGGER.info("Album Store API application initialized successfully");
 
         } catch (Exception e) {
@@ -36,6 +65,16 @@ public class AppInitializer implements ServletContextListener {
         LOGGER.info("Shutting down Album Store API application");
 
         try {
+            LOGGER.info("Album cache stats - {}", AlbumCache.getInstance().getStatsSummary());
+
+            if (indexWarmUpRetry != null) {
+                indexWarmUpRetry.shutdownNow();
+            }
+            ReviewRanking.getInstance().shutdown();
+
+            // 把聚合计数模式下尚未落库的增量写入数据库
+            ReviewCounterStore.getInstance().shutdown();
+
             // 关闭数据库连接池
             DBConnectionPool.closePool();
 
@@ -46,6 +85,175 @@ public class AppInitializer implements ServletContextListener {
         }
     }
 
+    /**
+     * 一次扫描albums表，加载专辑ID到布隆过滤器、artist/title到搜索索引，返回是否成功；
+     * 加载失败时过滤器保持未就绪状态，不会拒绝任何请求，搜索接口返回503
+     */
+    private boolean warmUpAlbumIndexes() {
+        AlbumIdFilter filter = AlbumIdFilter.getInstance();
+        AlbumSearchIndex searchIndex = AlbumSearchIndex.getInstance();
+        if (!filter.isEnabled() && !searchIndex.isEnabled()) {
+            return true;
+        }
+
+        boolean loaded = new AlbumDAO().forEachAlbum((albumId, artist, title) -> {
+            filter.put(albumId);
+            searchIndex.add(albumId, artist, title);
+        });
+        if (loaded) {
+            filter.markReady();
+            searchIndex.markReady();
+        } else {
+            LOGGER.warn("Album index warm-up failed, all lookups will go to the database and search is unavailable");
+        }
+        return loaded;
+    }
+
+    /**
+     * 每隔INDEX_WARM_UP_RETRY_MS重新加载一次，直到成功；重试前清空上次加载到一半的内容
+     */
+    private void scheduleIndexWarmUpRetry() {
+        indexWarmUpRetry = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "album-index-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        indexWarmUpRetry.scheduleWithFixedDelay(() -> {
+            try {
+                AlbumIdFilter.getInstance().clear();
+                AlbumSearchIndex.getInstance().clear();
+                if (warmUpAlbumIndexes()) {
+                    LOGGER.info("Album index warm-up succeeded on retry");
+                    indexWarmUpRetry.shutdown();
+                }
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error retrying album index warm-up", e);
+            }
+        }, INDEX_WARM_UP_RETRY_MS, INDEX_WARM_UP_RETRY_MS, TimeUnit.MILLISECONDS);
+        LOGGER.info("Retrying album index warm-up every {} ms", INDEX_WARM_UP_RETRY_MS);
+    }
+
+    /**
+     * 创建album_reviews的插入触发器，由数据库在评论写入时增量维护album_review_counts；
+     * 首次创建触发器时（或配置要求时）从album_reviews回填计数。
+     * 触发器无法创建时（例如缺少权限）回退到GROUP BY统计。
+     * 聚合计数模式下评论只以增量写入album_review_counts，不经过album_reviews：
+     * 不创建触发器也不回填（回填会用album_reviews的旧计数覆盖），只确认计数表可用
+     */
+    private void setUpReviewCounters() {
+        if (AppConfig.getInstance().isReviewAggregationEnabled()) {
+            ReviewDAO.setAggregationMode(true);
+            try (Connection conn = DBConnectionPool.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT 1 FROM album_review_counts LIMIT 1")) {
+                LOGGER.info("Aggregation mode: review counts are read from album_review_counts only");
+            } catch (SQLException e) {
+                LOGGER.error("album_review_counts is not available, review stats will answer 503", e);
+                ReviewDAO.setCounterTableReady(false);
+                return;
+            }
+            ReviewDAO.setCounterTableReady(true);
+            return;
+        }
+
+        boolean triggerCreated;
+        try (Connection conn = DBConnectionPool.getConnection()) {
+            triggerCreated = false;
+            if (!triggerExists(conn)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate(
+                            "CREATE TRIGGER " + REVIEW_COUNT_TRIGGER + " AFTER INSERT ON album_reviews " +
+                                    "FOR EACH ROW " +
+                                    "INSERT INTO album_review_counts (album_id, likes, dislikes) VALUES (" +
+                                    "NEW.album_id, " +
+                                    "IF(NEW.review_type = 'like', 1, 0), " +
+                                    "IF(NEW.review_type = 'dislike', 1, 0)) " +
+                                    "ON DUPLICATE KEY UPDATE likes = likes + VALUES(likes), " +
+                                    "dislikes = dislikes + VALUES(dislikes)"
+                    );
+                }
+                triggerCreated = true;
+                LOGGER.info("Created review count trigger {}", REVIEW_COUNT_TRIGGER);
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Failed to set up review count trigger, falling back to GROUP BY review stats", e);
+            ReviewDAO.setCounterTableReady(false);
+            return;
+        }
+
+        // 触发器生效之后再回填，回填写入的是绝对值，因此与并发插入不会重复计数
+        if (triggerCreated || AppConfig.getInstance().isReviewCountBackfillOnStartup()) {
+            if (!new ReviewDAO().rebuildReviewCounts()) {
+                LOGGER.warn("Review count backfill failed, falling back to GROUP BY review stats");
+                ReviewDAO.setCounterTableReady(false);
+                return;
+            }
+        }
+
+        ReviewDAO.setCounterTableReady(true);
+    }
+
+    private boolean triggerExists(Connection conn) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.TRIGGERS " +
+                "WHERE TRIGGER_SCHEMA = DATABASE() AND TRIGGER_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, REVIEW_COUNT_TRIGGER);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void addColumnIfMissing(Connection conn, String table, String column, String definition)
+            throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            LOGGER.info("Added column {}.{}", table, column);
+        }
+    }
+
+    private void createIndexIfMissing(Connection conn, String table, String index, String columns)
+            throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.STATISTICS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, index);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+            LOGGER.info("Created index {} on {}", index, table);
+        }
+    }
+
+    private boolean isColumnNotNullable(Connection conn, String table, String column) throws SQLException {
+        String sql = "SELECT IS_NULLABLE FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && "NO".equals(rs.getString(1));
+            }
+        }
+    }
+
     /**
      * 创建必要的数据库表
      */
@@ -60,10 +268,23 @@ public class AppInitializer implements ServletContextListener {
                             "artist VARCHAR(255) NOT NULL, " +
                             "title VARCHAR(255) NOT NULL, " +
                             "year VARCHAR(50) NOT NULL, " +
-                            "image_data MEDIUMBLOB NOT NULL, " +
+                            "image_data MEDIUMBLOB NULL, " +
+                            "image_hash CHAR(64) NULL, " +
+                            "image_size BIGINT NULL, " +
                             "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
             );
 
+            // 旧表升级：图片可保存在外部存储，image_data允许为空，并增加哈希和大小列
+            addColumnIfMissing(conn, "albums", "image_hash", "CHAR(64) NULL");
+            addColumnIfMissing(conn, "albums", "image_size", "BIGINT NULL");
+            if (isColumnNotNullable(conn, "albums", "image_data")) {
+                stmt.executeUpdate("ALTER TABLE albums MODIFY image_data MEDIUMBLOB NULL");
+                LOGGER.info("Made albums.image_data nullable");
+            }
+
+            // 专辑列表按(created_at, id)键集分页所需的索引
+            createIndexIfMissing(conn, "albums", "idx_albums_created_id", "created_at, id");
+
             // 创建评论表
             stmt.executeUpdate(
                     "CREATE TABLE IF NOT EXISTS album_reviews (" +
@@ -74,6 +295,15 @@ public class AppInitializer implements ServletContextListener {
                             "FOREIGN KEY (album_id) REFERENCES albums(id))"
             );
 
+            // 创建评论计数表，每个专辑一行，避免每次统计都对album_reviews做GROUP BY
+            stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS album_review_counts (" +
+                            "album_id VARCHAR(255) PRIMARY KEY, " +
+                            "likes BIGINT NOT NULL DEFAULT 0, " +
+                            "dislikes BIGINT NOT NULL DEFAULT 0, " +
+                            "FOREIGN KEY (album_id) REFERENCES albums(id))"
+            );
+
             LOGGER.info("Database tables created or already exist");
         } catch (SQLException e) {
             LOGGER.error("Failed to create database tables", e);
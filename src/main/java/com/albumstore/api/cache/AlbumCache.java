@@ -0,0 +1,162 @@
+package com.albumstore.api.cache;
+
+import com.albumstore.api.config.AppConfig;
+import com.albumstore.api.metrics.MetricsRegistry;
+import com.albumstore.api.model.AlbumInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 专辑元数据的进程内缓存（分段LRU，容量有上限）
+ * 专辑写入后不会再修改，因此缓存项无需过期，只在容量满时淘汰最久未访问的项
+ */
+public class AlbumCache {
+    private static final Logger LOGGER = LogManager.getLogger(AlbumCache.class);
+    private static final int SEGMENT_COUNT = 16; // 分段数，必须是2的幂
+    private static AlbumCache instance;
+
+    private final Segment[] segments;
+    private final boolean enabled;
+
+    // 命中/未命中/淘汰计数
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private AlbumCache(boolean enabled, int maxSize) {
+        this.enabled = enabled;
+        int segmentCapacity = Math.max(1, maxSize / SEGMENT_COUNT);
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        LOGGER.info("Album cache initialized: enabled={}, maxSize={}", enabled, segmentCapacity * SEGMENT_COUNT);
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("albumstore_album_cache_hits_total", "Album cache lookups that found an entry",
+                "cache", "album", hits::sum);
+        registry.counter("albumstore_album_cache_misses_total", "Album cache lookups that found no entry",
+                "cache", "album", misses::sum);
+        registry.counter("albumstore_album_cache_evictions_total", "Album cache entries evicted as over capacity",
+                "cache", "album", evictions::sum);
+        registry.gauge("albumstore_album_cache_size", "Album cache entries", "cache", "album", this::size);
+    }
+
+    public static synchronized AlbumCache getInstance() {
+        if (instance == null) {
+            AppConfig config = AppConfig.getInstance();
+            instance = new AlbumCache(config.isAlbumCacheEnabled(), config.getAlbumCacheMaxSize());
+        }
+        return instance;
+    }
+
+    /**
+     * 获取缓存的专辑信息，未命中返回null
+     */
+    public AlbumInfo get(String albumId) {
+        if (!enabled) {
+            return null;
+        }
+        AlbumInfo albumInfo = segmentFor(albumId).get(albumId);
+        if (albumInfo != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return albumInfo;
+    }
+
+    /**
+     * 放入专辑信息
+     */
+    public void put(String albumId, AlbumInfo albumInfo) {
+        if (!enabled || albumId == null || albumInfo == null) {
+            return;
+        }
+        segmentFor(albumId).put(albumId, albumInfo);
+    }
+
+    /**
+     * 清空全部缓存（数据库重置时调用）
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        LOGGER.info("Album cache invalidated");
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public String getStatsSummary() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return String.format("size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%d%%",
+                size(), hitCount, getMissCount(), getEvictionCount(),
+                total > 0 ? (hitCount * 100) / total : 0);
+    }
+
+    private Segment segmentFor(String albumId) {
+        int h = albumId.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * 单个分段：按访问顺序排列的LinkedHashMap，由分段自身的锁保护
+     */
+    private final class Segment {
+        private final LinkedHashMap<String, AlbumInfo> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<String, AlbumInfo>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AlbumInfo> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized AlbumInfo get(String key) {
+            return map.get(key);
+        }
+
+        synchronized void put(String key, AlbumInfo value) {
+            map.put(key, value);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.albumstore.api.cache;
+
+import com.albumstore.api.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已知专辑ID的布隆过滤器
+ * mightContain返回false表示专辑一定不存在，可直接返回404而无需查询数据库；
+ * 返回true时仍需查询数据库确认。预热完成前所有查询都视为"可能存在"。
+ */
+public class AlbumIdFilter {
+    private static final Logger LOGGER = LogManager.getLogger(AlbumIdFilter.class);
+    private static AlbumIdFilter instance;
+
+    private final boolean enabled;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready = false;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private AlbumIdFilter(boolean enabled, long expectedInsertions, double falsePositiveRate) {
+        this.enabled = enabled;
+        long n = Math.max(1, expectedInsertions);
+        // m = -n*ln(p)/(ln2)^2, k = m/n*ln2
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(enabled ? words : 1);
+        this.bitCount = (long) bits.length() * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        LOGGER.info("Album ID filter initialized: enabled={}, bits={}, hashes={}", enabled, bitCount, hashCount);
+    }
+
+    public static synchronized AlbumIdFilter getInstance() {
+        if (instance == null) {
+            AppConfig config = AppConfig.getInstance();
+            instance = new AlbumIdFilter(config.isAlbumFilterEnabled(),
+                    config.getAlbumFilterExpectedInsertions(), config.getAlbumFilterFalsePositiveRate());
+        }
+        return instance;
+    }
+
+    /**
+     * 记录一个存在的专辑ID
+     */
+    public void put(String albumId) {
+        if (!enabled) {
+            return;
+        }
+        long hash64 = hash(albumId);
+        int h1 = (int) hash64;
+        int h2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            setBit(index);
+        }
+    }
+
+    /**
+     * 专辑ID是否可能存在；过滤器未就绪或未启用时始终返回true
+     */
+    public boolean mightContain(String albumId) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        long hash64 = hash(albumId);
+        int h1 = (int) hash64;
+        int h2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                rejected.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 标记预热完成，此后过滤器开始拒绝未知ID
+     */
+    public void markReady() {
+        if (enabled) {
+            ready = true;
+            LOGGER.info("Album ID filter is ready");
+        }
+    }
+
+    /**
+     * 清空过滤器（数据库重置时调用）并退回未就绪状态：
+     * 清空过程中并发保存的专辑可能刚置位就被清掉，调用方需要重新扫描数据库后再调用markReady
+     */
+    public void clear() {
+        ready = false;
+        for (int i = 0; i < bits.length(); i++) {
+            bits.set(i, 0L);
+        }
+        LOGGER.info("Album ID filter cleared");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * 64位FNV-1a哈希并做一次混淆，用于双重哈希
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return h;
+    }
+}
@@ -0,0 +1,279 @@
+package com.albumstore.api.cache;
+
+import com.albumstore.api.config.AppConfig;
+import com.albumstore.api.util.AlbumIdGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 专辑artist/title的内存倒排索引
+ * 每个专辑分配一个递增的序号，词项 -> 序号的倒排表用有序int数组保存。
+ * 序号 -> 专辑ID用long数组保存解码后的64位ID，只有无法解码的早期UUID格式ID才保存字符串。
+ * 查询词以*结尾时按前缀匹配，多个查询词之间为AND关系。
+ */
+public class AlbumSearchIndex {
+    private static final Logger LOGGER = LogManager.getLogger(AlbumSearchIndex.class);
+    private static AlbumSearchIndex instance;
+
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] albumIds = new long[1024];
+    private int albumCount = 0;
+    private final Map<Integer, String> legacyAlbumIds = new HashMap<>(); // 无法解码的ID，对应albumIds中的-1
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private volatile boolean ready = false;
+
+    private AlbumSearchIndex(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static synchronized AlbumSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new AlbumSearchIndex(AppConfig.getInstance().isAlbumSearchEnabled());
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启动时加载完成后才对外提供查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        if (enabled) {
+            ready = true;
+            LOGGER.info("Album search index is ready: {} albums, {} terms", size(), termCount());
+        }
+    }
+
+    /**
+     * 索引一个专辑
+     */
+    public void add(String albumId, String artist, String title) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(artist, tokens);
+        tokenize(title, tokens);
+
+        long encoded = AlbumIdGenerator.decode(albumId);
+        lock.writeLock().lock();
+        try {
+            int ordinal = albumCount;
+            if (ordinal == albumIds.length) {
+                albumIds = Arrays.copyOf(albumIds, ordinal + (ordinal >> 1));
+            }
+            albumIds[albumCount++] = encoded;
+            if (encoded < 0) {
+                legacyAlbumIds.put(ordinal, albumId);
+            }
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, t -> new PostingList()).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询匹配所有查询词的专辑ID，按索引顺序最多返回limit个
+     */
+    public List<String> search(String query, int limit) {
+        List<String> terms = new ArrayList<>();
+        List<Boolean> prefixes = new ArrayList<>();
+        for (String rawTerm : query.trim().split("\\s+")) {
+            boolean prefix = rawTerm.endsWith("*");
+            Set<String> tokens = new LinkedHashSet<>();
+            tokenize(prefix ? rawTerm.substring(0, rawTerm.length() - 1) : rawTerm, tokens);
+            int i = 0;
+            for (String token : tokens) {
+                terms.add(token);
+                // 只有原始查询词的最后一个分词保留前缀匹配
+                prefixes.add(prefix && ++i == tokens.size());
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            // 第一个词项直接引用倒排表的数组，之后的交集写入同一个新数组，不复制倒排表
+            int[] matches = null;
+            int matchCount = 0;
+            boolean owned = false;
+            for (int i = 0; i < terms.size(); i++) {
+                PostingList termMatches = prefixes.get(i) ? prefixMatches(terms.get(i)) : postings.get(terms.get(i));
+                if (termMatches == null || termMatches.size == 0) {
+                    return result;
+                }
+                if (matches == null) {
+                    matches = termMatches.ordinals;
+                    matchCount = termMatches.size;
+                    continue;
+                }
+                if (!owned) {
+                    int[] target = new int[Math.min(matchCount, termMatches.size)];
+                    matchCount = intersect(matches, matchCount, termMatches.ordinals, termMatches.size, target);
+                    matches = target;
+                    owned = true;
+                } else {
+                    matchCount = intersect(matches, matchCount, termMatches.ordinals, termMatches.size, matches);
+                }
+                if (matchCount == 0) {
+                    return result;
+                }
+            }
+
+            // 启动加载重试期间同一专辑可能被索引两次，结果中去重
+            Set<String> seen = new LinkedHashSet<>();
+            for (int i = 0; i < matchCount && seen.size() < limit; i++) {
+                seen.add(albumIdAt(matches[i]));
+            }
+            result.addAll(seen);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引（数据库重置时调用）
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            albumIds = new long[1024];
+            albumCount = 0;
+            legacyAlbumIds.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Album search index cleared");
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return albumCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String albumIdAt(int ordinal) {
+        long encoded = albumIds[ordinal];
+        return encoded < 0 ? legacyAlbumIds.get(ordinal) : AlbumIdGenerator.encode(encoded);
+    }
+
+    /**
+     * 合并所有以prefix开头的词项的倒排表；只有一个词项时直接返回它的倒排表
+     */
+    private PostingList prefixMatches(String prefix) {
+        SortedMap<String, PostingList> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.isEmpty()) {
+            return null;
+        }
+        if (range.size() == 1) {
+            return range.values().iterator().next();
+        }
+
+        BitSet union = new BitSet(albumCount);
+        for (PostingList list : range.values()) {
+            for (int i = 0; i < list.size; i++) {
+                union.set(list.ordinals[i]);
+            }
+        }
+        PostingList merged = new PostingList();
+        merged.ordinals = union.stream().toArray();
+        merged.size = merged.ordinals.length;
+        return merged;
+    }
+
+    /**
+     * 有序数组a[0, aSize)与b[0, bSize)的交集写入target，返回交集大小；target可以就是a（写入位置不超过读取位置）
+     */
+    private static int intersect(int[] a, int aSize, int[] b, int bSize, int[] target) {
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < aSize && j < bSize) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                target[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * 按非字母数字字符切分并转为小写
+     */
+    static void tokenize(String text, Set<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * 有序的专辑序号数组；序号递增分配，追加即保持有序
+     */
+    private static final class PostingList {
+        int[] ordinals = new int[4];
+        int size = 0;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size + (size >> 1) + 1);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
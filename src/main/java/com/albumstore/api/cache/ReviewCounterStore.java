@@ -0,0 +1,298 @@
+package com.albumstore.api.cache;
+
+import com.albumstore.api.config.AppConfig;
+import com.albumstore.api.db.ReviewDAO;
+import com.albumstore.api.util.Constants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 聚合计数模式下的内存评论计数
+ * 每个专辑的计数 = 已落库的基数 + 尚未刷新的增量；增量使用LongAdder，写入无锁竞争。
+ * 后台线程定期把增量批量upsert到album_review_counts，不再为每条评论插入一行。
+ * 内存中的专辑数超过上限时，刷新后按近似LRU（二次机会）淘汰没有未刷新增量的专辑，下次访问时从主库重新加载。
+ */
+public class ReviewCounterStore {
+    private static final Logger LOGGER = LogManager.getLogger(ReviewCounterStore.class);
+    private static ReviewCounterStore instance;
+
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final int maxAlbums;
+    private final ReviewDAO reviewDAO;
+    private final ConcurrentHashMap<String, AlbumCounters> counters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flushExecutor;
+
+    private final AtomicLong flushedReviews = new AtomicLong(0);
+    private final AtomicLong failedFlushes = new AtomicLong(0);
+    private final AtomicLong evictedAlbums = new AtomicLong(0);
+
+    private ReviewCounterStore(boolean enabled, long flushIntervalMs, int maxAlbums) {
+        this.enabled = enabled;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAlbums = maxAlbums;
+        this.reviewDAO = new ReviewDAO();
+        if (enabled) {
+            startFlusher();
+        }
+        LOGGER.info("Review counter store initialized: enabled={}, flushIntervalMs={}, maxAlbums={}",
+                enabled, flushIntervalMs, maxAlbums);
+    }
+
+    public static synchronized ReviewCounterStore getInstance() {
+        if (instance == null) {
+            AppConfig config = AppConfig.getInstance();
+            instance = new ReviewCounterStore(config.isReviewAggregationEnabled(),
+                    config.getReviewAggregationFlushIntervalMs(), config.getReviewAggregationMaxAlbums());
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一条评论（只累加内存增量）；无法从数据库加载计数基数时返回false，评论未被记录
+     */
+    public boolean recordReview(String albumId, String reviewType) {
+        while (true) {
+            AlbumCounters albumCounters = getOrLoad(albumId);
+            if (albumCounters == null) {
+                return false;
+            }
+            // 先登记写入方再检查淘汰标记，与evict中先置标记再检查写入方配对，保证增量不会落在已淘汰的对象上
+            albumCounters.writers.increment();
+            try {
+                if (albumCounters.evicted) {
+                    continue;
+                }
+                if (Constants.REVIEW_LIKE.equals(reviewType)) {
+                    albumCounters.pendingLikes.increment();
+                } else {
+                    albumCounters.pendingDislikes.increment();
+                }
+                return true;
+            } finally {
+                albumCounters.writers.decrement();
+            }
+        }
+    }
+
+    /**
+     * 获取评论统计，格式与ReviewDAO.getReviewStats一致；无法从数据库加载计数基数时返回null
+     */
+    public Map<String, Integer> getReviewStats(String albumId) {
+        AlbumCounters albumCounters = getOrLoad(albumId);
+        if (albumCounters == null) {
+            return null;
+        }
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put(Constants.REVIEW_LIKE, (int) albumCounters.likes());
+        stats.put(Constants.REVIEW_DISLIKE, (int) albumCounters.dislikes());
+        return stats;
+    }
+
+    /**
+     * 内存中是否已有该专辑的计数（已有计数的专辑一定存在）
+     */
+    public boolean contains(String albumId) {
+        return counters.containsKey(albumId);
+    }
+
+    /**
+     * 清空内存计数（数据库重置时调用），未刷新的增量随之丢弃
+     */
+    public void clear() {
+        counters.clear();
+        LOGGER.info("Review counter store cleared");
+    }
+
+    /**
+     * 停止后台刷新并把剩余增量写入数据库
+     */
+    public void shutdown() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        LOGGER.info("Review counter store stopped - flushed reviews: {}, failed flushes: {}, evicted albums: {}",
+                flushedReviews.get(), failedFlushes.get(), evictedAlbums.get());
+    }
+
+    public long getFlushedReviewCount() {
+        return flushedReviews.get();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.get();
+    }
+
+    public long getEvictedAlbumCount() {
+        return evictedAlbums.get();
+    }
+
+    /**
+     * 取得专辑的计数，不在内存中时从主库加载基数；加载失败时返回null且不缓存
+     */
+    private AlbumCounters getOrLoad(String albumId) {
+        AlbumCounters albumCounters = counters.get(albumId);
+        if (albumCounters != null) {
+            if (!albumCounters.referenced) {
+                albumCounters.referenced = true;
+            }
+            return albumCounters;
+        }
+
+        // 首次访问时从计数表加载基数；基数会一直累加下去，必须读主库，不能读可能落后的从库
+        long[] base = reviewDAO.loadReviewCounts(albumId);
+        if (base == null) {
+            LOGGER.warn("Failed to load review counters for album {}, not caching", albumId);
+            return null;
+        }
+        // 并发加载时以先放入的为准
+        AlbumCounters loaded = new AlbumCounters(base[0], base[1]);
+        AlbumCounters existing = counters.putIfAbsent(albumId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void startFlusher() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "review-counter-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error flushing review counters", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 把所有专辑的增量转入基数，并批量写入数据库；写入失败时把增量退回
+     */
+    void flush() {
+        Map<String, long[]> deltas = new HashMap<>();
+        Map<String, AlbumCounters> drained = new HashMap<>();
+
+        for (Map.Entry<String, AlbumCounters> entry : counters.entrySet()) {
+            AlbumCounters albumCounters = entry.getValue();
+            long likes = albumCounters.pendingLikes.sum();
+            long dislikes = albumCounters.pendingDislikes.sum();
+            if (likes == 0 && dislikes == 0) {
+                continue;
+            }
+
+            // 先加基数再减增量，读取方在此期间最多短暂多计，不会少计
+            albumCounters.baseLikes.addAndGet(likes);
+            albumCounters.baseDislikes.addAndGet(dislikes);
+            albumCounters.pendingLikes.add(-likes);
+            albumCounters.pendingDislikes.add(-dislikes);
+
+            deltas.put(entry.getKey(), new long[]{likes, dislikes});
+            drained.put(entry.getKey(), albumCounters);
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        if (reviewDAO.applyReviewCountDeltas(deltas)) {
+            long total = 0;
+            for (long[] delta : deltas.values()) {
+                total += delta[0] + delta[1];
+            }
+            flushedReviews.addAndGet(total);
+            LOGGER.debug("Flushed {} reviews for {} albums", total, deltas.size());
+            evictIfFull();
+        } else {
+            failedFlushes.incrementAndGet();
+            LOGGER.warn("Failed to flush review counters for {} albums, will retry", deltas.size());
+            for (Map.Entry<String, AlbumCounters> entry : drained.entrySet()) {
+                long[] delta = deltas.get(entry.getKey());
+                AlbumCounters albumCounters = entry.getValue();
+                albumCounters.pendingLikes.add(delta[0]);
+                albumCounters.pendingDislikes.add(delta[1]);
+                albumCounters.baseLikes.addAndGet(-delta[0]);
+                albumCounters.baseDislikes.addAndGet(-delta[1]);
+            }
+        }
+    }
+
+    /**
+     * 专辑数超过上限时淘汰到上限以内：最近被访问过的专辑清除访问标记后保留一轮，
+     * 有未刷新增量或正在写入的专辑跳过。在刷新线程上调用，刷新成功后大部分专辑的增量为0
+     */
+    private void evictIfFull() {
+        int excess = counters.size() - maxAlbums;
+        if (excess <= 0) {
+            return;
+        }
+        int evicted = 0;
+        for (Map.Entry<String, AlbumCounters> entry : counters.entrySet()) {
+            if (evicted >= excess) {
+                break;
+            }
+            AlbumCounters albumCounters = entry.getValue();
+            if (albumCounters.referenced) {
+                albumCounters.referenced = false;
+                continue;
+            }
+            albumCounters.evicted = true;
+            if (albumCounters.writers.sum() != 0
+                    || albumCounters.pendingLikes.sum() != 0 || albumCounters.pendingDislikes.sum() != 0) {
+                albumCounters.evicted = false;
+                continue;
+            }
+            if (counters.remove(entry.getKey(), albumCounters)) {
+                evicted++;
+            }
+        }
+        evictedAlbums.addAndGet(evicted);
+        LOGGER.debug("Evicted {} review counters, {} albums in memory", evicted, counters.size());
+    }
+
+    /**
+     * 单个专辑的计数
+     */
+    private static final class AlbumCounters {
+        final AtomicLong baseLikes;
+        final AtomicLong baseDislikes;
+        final LongAdder pendingLikes = new LongAdder();
+        final LongAdder pendingDislikes = new LongAdder();
+        final LongAdder writers = new LongAdder(); // 正在累加增量的线程数
+        volatile boolean referenced = true;        // 上次淘汰扫描后是否被访问过
+        volatile boolean evicted = false;          // 已从内存移除，不能再累加增量
+
+        AlbumCounters(long likes, long dislikes) {
+            this.baseLikes = new AtomicLong(likes);
+            this.baseDislikes = new AtomicLong(dislikes);
+        }
+
+        long likes() {
+            return baseLikes.get() + pendingLikes.sum();
+        }
+
+        long dislikes() {
+            return baseDislikes.get() + pendingDislikes.sum();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.albumstore.api.cache;
+
+import com.albumstore.api.config.AppConfig;
+import com.albumstore.api.db.ReviewDAO;
+import com.albumstore.api.model.RankedAlbum;
+import com.albumstore.api.util.Constants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按喜欢/不喜欢数量排序的专辑排行榜
+ * 每种评论类型维护一个按(计数降序, 专辑ID升序)排序的跳表，API接收评论时增量更新，读取前N名只需遍历表头。
+ * 启动后在后台线程上从数据库加载，之后定期与数据库对账：以数据库中的计数为准，这样能纳入其他实例写入的评论，
+ * 也能纠正Producer已确认但消费端丢弃的评论造成的多计。对账读取之后、写回之前到达的评论会被覆盖，
+ * 在下一次对账时随数据库计数补回；数据库中没有计数行的专辑保留内存中的计数。
+ */
+public class ReviewRanking {
+    private static final Logger LOGGER = LogManager.getLogger(ReviewRanking.class);
+    private static final int LOCK_STRIPES = 64;
+    private static ReviewRanking instance;
+
+    private final boolean enabled;
+    private final long reconcileIntervalMs;
+    private final Ranking likes = new Ranking();
+    private final Ranking dislikes = new Ranking();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private ScheduledExecutorService reconcileExecutor;
+    private volatile boolean loaded = false;
+
+    private ReviewRanking(boolean enabled, long reconcileIntervalMs) {
+        this.enabled = enabled;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public static synchronized ReviewRanking getInstance() {
+        if (instance == null) {
+            AppConfig config = AppConfig.getInstance();
+            instance = new ReviewRanking(config.isReviewRankingEnabled(), config.getReviewRankingReconcileIntervalMs());
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启动后台对账线程：立即加载初始排名（不阻塞应用启动），之后定期对账
+     * 计数表不可用时对账需要对album_reviews做全表GROUP BY，此时只做初始加载，跳过定期对账
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        reconcileExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "review-ranking-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconcileExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                if (loaded && !ReviewDAO.isCounterTableReady()) {
+                    LOGGER.debug("Skipping review ranking reconcile, album_review_counts is not ready");
+                    return;
+                }
+                loaded |= reconcile();
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error reconciling review ranking", e);
+            }
+        }, 0, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        if (reconcileExecutor != null) {
+            reconcileExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录API接收的一条评论
+     */
+    public void recordReview(String albumId, String reviewType) {
+        if (!enabled) {
+            return;
+        }
+        Ranking ranking = rankingFor(reviewType);
+        synchronized (lockFor(albumId)) {
+            Long current = ranking.counts.get(albumId);
+            ranking.update(albumId, current == null ? 0 : current, (current == null ? 0 : current) + 1);
+        }
+    }
+
+    /**
+     * 获取前n名
+     */
+    public List<RankedAlbum> top(String reviewType, int n) {
+        List<RankedAlbum> result = new ArrayList<>(n);
+        Iterator<RankEntry> iterator = rankingFor(reviewType).entries.iterator();
+        while (iterator.hasNext() && result.size() < n) {
+            RankEntry entry = iterator.next();
+            result.add(new RankedAlbum(entry.albumId, entry.count));
+        }
+        return result;
+    }
+
+    /**
+     * 清空排名（数据库重置时调用）
+     * 持有全部分段锁，避免与并发的评论交错后计数表和跳表不一致（同一专辑在跳表中出现两次）
+     */
+    public void clear() {
+        clearHoldingLocks(0);
+        LOGGER.info("Review ranking cleared");
+    }
+
+    private void clearHoldingLocks(int stripe) {
+        if (stripe == LOCK_STRIPES) {
+            likes.clear();
+            dislikes.clear();
+            return;
+        }
+        synchronized (locks[stripe]) {
+            clearHoldingLocks(stripe + 1);
+        }
+    }
+
+    /**
+     * 与数据库中的计数对账，返回是否成功
+     */
+    boolean reconcile() {
+        long start = System.currentTimeMillis();
+        int[] albums = new int[1];
+        boolean success = new ReviewDAO().forEachReviewCount((albumId, likeCount, dislikeCount) -> {
+            synchronized (lockFor(albumId)) {
+                setTo(likes, albumId, likeCount);
+                setTo(dislikes, albumId, dislikeCount);
+            }
+            albums[0]++;
+        });
+        if (success) {
+            LOGGER.info("Reconciled review ranking with {} albums in {} ms", albums[0], System.currentTimeMillis() - start);
+        }
+        return success;
+    }
+
+    private void setTo(Ranking ranking, String albumId, long count) {
+        Long current = ranking.counts.get(albumId);
+        long oldCount = current == null ? 0 : current;
+        if (oldCount != count) {
+            ranking.update(albumId, oldCount, count);
+        }
+    }
+
+    private Ranking rankingFor(String reviewType) {
+        return Constants.REVIEW_DISLIKE.equals(reviewType) ? dislikes : likes;
+    }
+
+    private Object lockFor(String albumId) {
+        return locks[(albumId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    /**
+     * 单个评论类型的排名；同一专辑的更新由调用方加锁串行化
+     */
+    private static final class Ranking {
+        final ConcurrentHashMap<String, Long> counts = new ConcurrentHashMap<>();
+        final ConcurrentSkipListSet<RankEntry> entries = new ConcurrentSkipListSet<>();
+
+        void update(String albumId, long oldCount, long newCount) {
+            if (oldCount > 0) {
+                entries.remove(new RankEntry(albumId, oldCount));
+            }
+            if (newCount > 0) {
+                entries.add(new RankEntry(albumId, newCount));
+                counts.put(albumId, newCount);
+            } else {
+                counts.remove(albumId);
+            }
+        }
+
+        void clear() {
+            counts.clear();
+            entries.clear();
+        }
+    }
+
+    private static final class RankEntry implements Comparable<RankEntry> {
+        final String albumId;
+        final long count;
+
+        RankEntry(String albumId, long count) {
+            this.albumId = albumId;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(RankEntry other) {
+            int byCount = Long.compare(other.count, count);
+            return byCount != 0 ? byCount : albumId.compareTo(other.albumId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RankEntry)) {
+                return false;
+            }
+            RankEntry other = (RankEntry) o;
+            return count == other.count && albumId.equals(other.albumId);
+        }
+
+        @Override
+        public int hashCode() {
+            return albumId.hashCode() * 31 + Long.hashCode(count);
+        }
+    }
+}
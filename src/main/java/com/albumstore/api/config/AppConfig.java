@@ -14,6 +14,7 @@ import java.util.Properties;
 public class AppConfig {
     private static final Logger LOGGER = LogManager.getLogger(AppConfig.class);
     private static final String CONFIG_FILE = "/application.properties";
+    private static final String SYSTEM_PROPERTY_PREFIX = "albumstore."; // -Dalbumstore.db.url=...覆盖配置文件
     private static AppConfig instance;
 
     private final Properties properties;
@@ -21,6 +22,7 @@ public class AppConfig {
     private AppConfig() {
         properties = new Properties();
         loadProperties();
+        applySystemPropertyOverrides();
     }
 
     public static synchronized AppConfig getInstance() {
@@ -59,6 +61,19 @@ public class AppConfig {
         }
     }
 
+    /**
+     * 以albumstore.为前缀的JVM系统属性覆盖配置文件中的同名配置（去掉前缀）
+     */
+    private void applySystemPropertyOverrides() {
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PROPERTY_PREFIX)) {
+                String key = name.substring(SYSTEM_PROPERTY_PREFIX.length());
+                properties.setProperty(key, System.getProperty(name));
+                LOGGER.info("Configuration {} overridden by system property", key);
+            }
+        }
+    }
+
 //    private void loadProperties() {
 //        try (InputStream inputStream = getClass().getResourceAsStream(CONFIG_FILE)) {
 //            if (inputStream != null) {
@@ -75,6 +90,10 @@ public class AppConfig {
 //    }
 
     // 数据库配置
+    public String getDbDriverClassName() {
+        return properties.getProperty("db.driverClassName", "com.mysql.cj.jdbc.Driver");
+    }
+
     public String getDbUrl() {
         return properties.getProperty("db.url");
     }
@@ -103,6 +122,80 @@ public class AppConfig {
         return Integer.parseInt(properties.getProperty("db.pool.minIdle", "10"));
     }
 
+    public long getDbPoolMaxWaitMs() {
+        return Long.parseLong(properties.getProperty("db.pool.maxWaitMs", "30000"));
+    }
+
+    public int getDbPoolMaxWaiters() {
+        return Integer.parseInt(properties.getProperty("db.pool.maxWaiters", "0"));
+    }
+
+    // 连接池自动调整配置
+    public boolean isDbPoolAdaptiveEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.pool.adaptive.enabled", "false"));
+    }
+
+    public int getDbPoolAdaptiveMinTotal() {
+        return Integer.parseInt(properties.getProperty("db.pool.adaptive.minTotal", "20"));
+    }
+
+    public int getDbPoolAdaptiveMaxTotal() {
+        return Integer.parseInt(properties.getProperty("db.pool.adaptive.maxTotal", "200"));
+    }
+
+    public int getDbPoolAdaptiveStep() {
+        return Integer.parseInt(properties.getProperty("db.pool.adaptive.step", "10"));
+    }
+
+    public long getDbPoolAdaptiveTargetWaitMs() {
+        return Long.parseLong(properties.getProperty("db.pool.adaptive.targetWaitMs", "10"));
+    }
+
+    public long getDbPoolAdaptiveMaxQueryMs() {
+        return Long.parseLong(properties.getProperty("db.pool.adaptive.maxQueryMs", "200"));
+    }
+
+    public long getDbPoolAdaptiveIntervalMs() {
+        return Long.parseLong(properties.getProperty("db.pool.adaptive.intervalMs", "5000"));
+    }
+
+    public boolean isDbRewriteBatchedStatements() {
+        return Boolean.parseBoolean(properties.getProperty("db.rewriteBatchedStatements", "true"));
+    }
+
+    public boolean isDbWriterServerPrepStmts() {
+        return Boolean.parseBoolean(properties.getProperty("db.writer.useServerPrepStmts", "true"));
+    }
+
+    // 只读副本配置
+    public String getDbReaderUrl() {
+        return properties.getProperty("db.reader.url", "");
+    }
+
+    public int getDbReaderInitialSize() {
+        return Integer.parseInt(properties.getProperty("db.reader.pool.initialSize", "10"));
+    }
+
+    public int getDbReaderMaxTotal() {
+        return Integer.parseInt(properties.getProperty("db.reader.pool.maxTotal", "50"));
+    }
+
+    public int getDbReaderMaxIdle() {
+        return Integer.parseInt(properties.getProperty("db.reader.pool.maxIdle", "20"));
+    }
+
+    public int getDbReaderMinIdle() {
+        return Integer.parseInt(properties.getProperty("db.reader.pool.minIdle", "10"));
+    }
+
+    public long getDbReaderMaxLagMs() {
+        return Long.parseLong(properties.getProperty("db.reader.maxLagMs", "5000"));
+    }
+
+    public boolean isDbReaderFallbackToWriter() {
+        return Boolean.parseBoolean(properties.getProperty("db.reader.fallbackToWriter", "true"));
+    }
+
     // Producer服务配置
     public String getProducerHost() {
         return properties.getProperty("producer.host");
@@ -112,6 +205,166 @@ public class AppConfig {
         return Integer.parseInt(properties.getProperty("producer.port", "9090"));
     }
 
+    public boolean isProducerBatchEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("producer.batch.enabled", "false"));
+    }
+
+    public int getProducerBatchSize() {
+        return Integer.parseInt(properties.getProperty("producer.batch.size", "100"));
+    }
+
+    public long getProducerBatchLingerMs() {
+        return Long.parseLong(properties.getProperty("producer.batch.lingerMs", "5"));
+    }
+
+    public String getProducerBatchPath() {
+        return properties.getProperty("producer.batch.path", "/publish/batch");
+    }
+
+    // 图片存储配置
+    public String getImageStoreType() {
+        return properties.getProperty("image.store.type", "database");
+    }
+
+    public String getImageStoreDir() {
+        return properties.getProperty("image.store.dir", "/var/lib/albumstore-api/images");
+    }
+
+    // 评论发件箱配置
+    public boolean isReviewOutboxEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("review.outbox.enabled", "false"));
+    }
+
+    public String getReviewOutboxDir() {
+        return properties.getProperty("review.outbox.dir", "/var/lib/albumstore-api/outbox");
+    }
+
+    public int getReviewOutboxSegmentBytes() {
+        return Integer.parseInt(properties.getProperty("review.outbox.segmentBytes", String.valueOf(64 * 1024 * 1024)));
+    }
+
+    public boolean isReviewOutboxFsync() {
+        return Boolean.parseBoolean(properties.getProperty("review.outbox.fsync", "false"));
+    }
+
+    public int getReviewOutboxDrainBatchSize() {
+        return Integer.parseInt(properties.getProperty("review.outbox.drainBatchSize", "500"));
+    }
+
+    // 专辑缓存配置
+    public boolean isAlbumCacheEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("cache.album.enabled", "true"));
+    }
+
+    public int getAlbumCacheMaxSize() {
+        return Integer.parseInt(properties.getProperty("cache.album.maxSize", "100000"));
+    }
+
+    public int getAlbumBatchMaxIds() {
+        return Integer.parseInt(properties.getProperty("album.batch.maxIds", "1000"));
+    }
+
+    public int getAlbumListDefaultLimit() {
+        return Integer.parseInt(properties.getProperty("album.list.defaultLimit", "50"));
+    }
+
+    public int getAlbumListMaxLimit() {
+        return Integer.parseInt(properties.getProperty("album.list.maxLimit", "200"));
+    }
+
+    public int getAlbumBulkBatchSize() {
+        return Integer.parseInt(properties.getProperty("album.bulk.batchSize", "500"));
+    }
+
+    // 专辑ID生成器节点ID（0-1023），-1表示由主机名推导
+    public int getIdNodeId() {
+        return Integer.parseInt(properties.getProperty("id.nodeId", "-1"));
+    }
+
+    // 专辑搜索索引配置；索引只包含本实例保存的专辑，只适用于单实例部署，默认关闭
+    public boolean isAlbumSearchEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("search.album.enabled", "false"));
+    }
+
+    public int getAlbumSearchDefaultLimit() {
+        return Integer.parseInt(properties.getProperty("search.album.defaultLimit", "20"));
+    }
+
+    public int getAlbumSearchMaxLimit() {
+        return Integer.parseInt(properties.getProperty("search.album.maxLimit", "100"));
+    }
+
+    // 专辑ID布隆过滤器配置
+    public boolean isAlbumFilterEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("filter.album.enabled", "false"));
+    }
+
+    public long getAlbumFilterExpectedInsertions() {
+        return Long.parseLong(properties.getProperty("filter.album.expectedInsertions", "1000000"));
+    }
+
+    public double getAlbumFilterFalsePositiveRate() {
+        return Double.parseDouble(properties.getProperty("filter.album.falsePositiveRate", "0.01"));
+    }
+
+    // 评论计数配置
+    public boolean isReviewCountBackfillOnStartup() {
+        return Boolean.parseBoolean(properties.getProperty("review.counts.backfillOnStartup", "false"));
+    }
+
+    public boolean isReviewAggregationEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("review.aggregation.enabled", "false"));
+    }
+
+    public long getReviewAggregationFlushIntervalMs() {
+        return Long.parseLong(properties.getProperty("review.aggregation.flushIntervalMs", "1000"));
+    }
+
+    public int getReviewAggregationMaxAlbums() {
+        return Integer.parseInt(properties.getProperty("review.aggregation.maxAlbums", "100000"));
+    }
+
+    // 评论排行榜配置
+    public boolean isReviewRankingEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("review.top.enabled", "false"));
+    }
+
+    public long getReviewRankingReconcileIntervalMs() {
+        return Long.parseLong(properties.getProperty("review.top.reconcileIntervalMs", "60000"));
+    }
+
+    public int getReviewRankingMaxN() {
+        return Integer.parseInt(properties.getProperty("review.top.maxN", "1000"));
+    }
+
+    // 请求执行模式配置：container在容器线程上执行，virtual把阻塞的DAO调用放到虚拟线程上
+    public String getServletExecutionMode() {
+        return properties.getProperty("servlet.executionMode", "container");
+    }
+
+    // 虚拟线程模式下同时访问数据库的请求数上限，0表示取连接池最大连接数和虚拟线程载体线程数中较小的一个
+    public int getServletVirtualMaxConcurrency() {
+        return Integer.parseInt(properties.getProperty("servlet.virtual.maxConcurrency", "0"));
+    }
+
+    // 异步读取流水线配置（GET /albums/{id} 和 GET /review/{id}）
+    public boolean isReadAsyncEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("read.async.enabled", "false"));
+    }
+
+    public int getReadAsyncThreads() {
+        return Integer.parseInt(properties.getProperty("read.async.threads", "32"));
+    }
+
+    // route为album或review
+    public long getReadAsyncTimeoutMs(String route) {
+        return Long.parseLong(properties.getProperty("read.async." + route + ".timeoutMs", "5000"));
+    }
+
+    public int getReadAsyncMaxPending(String route) {
+        return Integer.parseInt(properties.getProperty("read.async." + route + ".maxPending", "1000"));
+    }
+
     // 获取任意属性
     public String getProperty(String key) {
         return properties.getProperty(key);
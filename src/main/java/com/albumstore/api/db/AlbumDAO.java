@@ -1,92 +1,314 @@
 // AlbumDAO.java
 package com.albumstore.api.db;
 
+import com.albumstore.api.cache.AlbumCache;
+import com.albumstore.api.cache.AlbumIdFilter;
+import com.albumstore.api.cache.AlbumSearchIndex;
+import com.albumstore.api.cache.ReviewCounterStore;
+import com.albumstore.api.cache.ReviewRanking;
+import com.albumstore.api.metrics.LatencyHistogram;
+import com.albumstore.api.metrics.MetricsRegistry;
 import com.albumstore.api.model.AlbumInfo;
+import com.albumstore.api.model.AlbumListing;
+import com.albumstore.api.storage.ImageDescriptor;
+import com.albumstore.api.storage.ImageStore;
+import com.albumstore.api.storage.ImageStores;
+import com.albumstore.api.storage.StagedImage;
+import com.albumstore.api.storage.StoredImage;
+import com.albumstore.api.util.AlbumIdGenerator;
+import com.albumstore.api.util.HashUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.sql.*;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class AlbumDAO {
+
+    /**
+     * 逐行接收专辑ID及其artist/title
+     */
+    public interface AlbumRowConsumer {
+        void accept(String albumId, String artist, String title);
+    }
+
     private static final Logger LOGGER = LogManager.getLogger(AlbumDAO.class);
+    private static final int IN_CLAUSE_CHUNK_SIZE = 500; // 批量查询时每条IN语句的最大ID数
+    private static final int MAX_ID_ATTEMPTS = 3; // 主键冲突时最多尝试的ID个数
+    private static final int MYSQL_DUPLICATE_KEY = 1062;
+
+    // 各方法数据库访问耗时，从取连接之前开始计时，包含在连接池中的等待
+    private static final LatencyHistogram SAVE_ALBUMS_BATCH_LATENCY = MetricsRegistry.daoLatency("saveAlbumsBatch");
+    private static final LatencyHistogram SAVE_ALBUM_LATENCY = MetricsRegistry.daoLatency("saveAlbum");
+    private static final LatencyHistogram GET_ALBUM_BY_ID_LATENCY = MetricsRegistry.daoLatency("getAlbumById");
+    private static final LatencyHistogram GET_ALBUMS_BY_IDS_LATENCY = MetricsRegistry.daoLatency("getAlbumsByIds");
+    private static final LatencyHistogram LIST_ALBUMS_LATENCY = MetricsRegistry.daoLatency("listAlbums");
+    private static final LatencyHistogram GET_IMAGE_DESCRIPTOR_LATENCY =
+            MetricsRegistry.daoLatency("getImageDescriptor");
+    private static final LatencyHistogram WRITE_IMAGE_LATENCY = MetricsRegistry.daoLatency("writeImage");
+    private static final LatencyHistogram ALBUM_EXISTS_LATENCY = MetricsRegistry.daoLatency("albumExists");
+    private static final LatencyHistogram FOR_EACH_ALBUM_LATENCY = MetricsRegistry.daoLatency("forEachAlbum");
+    private static final LatencyHistogram CLEAR_ALL_DATA_LATENCY = MetricsRegistry.daoLatency("clearAllData");
+
+    private final AlbumCache albumCache = AlbumCache.getInstance();
+    private final AlbumIdFilter albumIdFilter = AlbumIdFilter.getInstance();
+    private final AlbumSearchIndex albumSearchIndex = AlbumSearchIndex.getInstance();
+    // 为null时图片保存在albums.image_data中
+    private final ImageStore imageStore = ImageStores.getInstance();
+    private final AlbumIdGenerator albumIdGenerator = AlbumIdGenerator.getInstance();
 
     /**
      * 保存专辑信息和图片
      */
     public String saveAlbum(AlbumInfo albumInfo, byte[] imageData) {
-        String sql = "INSERT INTO albums (id, artist, title, year, image_data) VALUES (?, ?, ?, ?, ?)";
-        String albumId = generateUniqueAlbumId();
-
-        try (Connection conn = DBConnectionPool.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (StagedImage image = stageImage(imageData)) {
+            return saveAlbum(albumInfo, image);
+        } catch (IOException e) {
+            LOGGER.error("Error storing album image", e);
+            return null;
+        }
+    }
 
-            pstmt.setString(1, albumId);
-            pstmt.setString(2, albumInfo.getArtist());
-            pstmt.setString(3, albumInfo.getTitle());
-            pstmt.setString(4, albumInfo.getYear());
-            pstmt.setBytes(5, imageData);
+    /**
+     * 暂存上传的图片流：先写入本地临时文件，只使用固定大小的缓冲区，不会把整张图片读入内存。
+     * 上传的其它字段可能在图片之后才到达，配置了外部图片存储时由saveAlbum在校验通过后再移入存储，
+     * 校验失败的上传不会在存储中留下无人引用的文件
+     */
+    public StagedImage stageImage(InputStream imageStream) throws IOException {
+        return StagedImage.spool(imageStream);
+    }
 
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected > 0) {
-                LOGGER.info("Album saved successfully with ID: {}", albumId);
-                return albumId;
-            } else {
-                LOGGER.error("Failed to save album: {}", albumInfo);
-                return null;
-            }
+    /**
+     * 暂存内存中的图片
+     */
+    public StagedImage stageImage(byte[] imageData) throws IOException {
+        if (imageStore != null) {
+            return StagedImage.external(imageStore.store(new ByteArrayInputStream(imageData)));
+        }
+        return StagedImage.inMemory(imageData);
+    }
 
-        } catch (SQLException e) {
-            LOGGER.error("Error saving album", e);
+    /**
+     * 引用图片存储中已有的图片（按SHA-256），图片不存在或未使用外部存储时返回null
+     */
+    public StagedImage stageStoredImage(String hash) throws IOException {
+        if (imageStore == null || !HashUtil.isSha256Hex(hash)) {
+            return null;
+        }
+        long size = imageStore.size(hash);
+        return size < 0 ? null : StagedImage.external(new StoredImage(hash, size));
+    }
 
-            // 尝试使用新ID重新保存，但仅限于主键冲突的情况
-            if (e instanceof SQLIntegrityConstraintViolationException) {
-                LOGGER.warn("Primary key conflict detected, retrying with new ID");
-                return retryWithNewId(albumInfo, imageData);
+    /**
+     * 在一个事务中批量插入专辑（addBatch/executeBatch），返回按顺序生成的专辑ID；失败时整批回滚并返回null
+     * 主键冲突时整批换新ID重试，最多MAX_ID_ATTEMPTS次
+     */
+    public List<String> saveAlbumsBatch(List<AlbumInfo> albumInfos, List<StagedImage> images) {
+        List<String> albumIds;
+        long start = System.nanoTime();
+        try {
+            // 只移入外部存储一次，重试时不再移动
+            List<StagedImage> storedImages = new ArrayList<>(images.size());
+            for (StagedImage image : images) {
+                storedImages.add(toImageStore(image));
             }
 
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    albumIds = insertAlbumsBatch(albumInfos, storedImages);
+                    break;
+                } catch (SQLException e) {
+                    if (!isDuplicateKey(e) || attempt >= MAX_ID_ATTEMPTS) {
+                        throw e;
+                    }
+                    LOGGER.warn("Primary key conflict in album batch, retrying with new IDs (attempt {})", attempt);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.error("Error saving album batch of {}", albumInfos.size(), e);
             return null;
+        } finally {
+            SAVE_ALBUMS_BATCH_LATENCY.recordSince(start);
+        }
+
+        for (int i = 0; i < albumIds.size(); i++) {
+            onAlbumSaved(albumIds.get(i), albumInfos.get(i));
         }
+        LOGGER.info("Saved album batch of {}", albumIds.size());
+        return albumIds;
     }
 
-    /**
-     * 使用新ID重试保存操作
-     */
-    private String retryWithNewId(AlbumInfo albumInfo, byte[] imageData) {
-        String sql = "INSERT INTO albums (id, artist, title, year, image_data) VALUES (?, ?, ?, ?, ?)";
-        String newAlbumId = generateUniqueAlbumId();
+    private List<String> insertAlbumsBatch(List<AlbumInfo> albumInfos, List<StagedImage> images)
+            throws SQLException, IOException {
+        String sql = "INSERT INTO albums (id, artist, title, year, image_data, image_hash, image_size) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        List<String> albumIds = new ArrayList<>(albumInfos.size());
+        List<InputStream> imageStreams = new ArrayList<>(albumInfos.size());
 
-        try (Connection conn = DBConnectionPool.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnectionPool.getConnection()) {
+            conn.setAutoCommit(false);
 
-            pstmt.setString(1, newAlbumId);
-            pstmt.setString(2, albumInfo.getArtist());
-            pstmt.setString(3, albumInfo.getTitle());
-            pstmt.setString(4, albumInfo.getYear());
-            pstmt.setBytes(5, imageData);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < albumInfos.size(); i++) {
+                    AlbumInfo albumInfo = albumInfos.get(i);
+                    StagedImage image = images.get(i);
+                    String albumId = generateUniqueAlbumId();
+                    InputStream imageStream = image.openDataStream();
+                    if (imageStream != null) {
+                        imageStreams.add(imageStream);
+                    }
+
+                    pstmt.setString(1, albumId);
+                    pstmt.setString(2, albumInfo.getArtist());
+                    pstmt.setString(3, albumInfo.getTitle());
+                    pstmt.setString(4, albumInfo.getYear());
+                    bindImage(pstmt, 5, image, imageStream);
+                    pstmt.addBatch();
+                    albumIds.add(albumId);
+                }
 
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected > 0) {
-                LOGGER.info("Album saved successfully with new ID: {}", newAlbumId);
-                return newAlbumId;
-            } else {
-                LOGGER.error("Failed to save album after retry: {}", albumInfo);
-                return null;
+                pstmt.executeBatch();
+                conn.commit();
+                return albumIds;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                for (InputStream imageStream : imageStreams) {
+                    imageStream.close();
+                }
             }
+        }
+    }
 
-        } catch (SQLException e) {
-            LOGGER.error("Error saving album during retry", e);
+    /**
+     * 保存专辑信息和已暂存的图片
+     * 配置了外部图片存储时先把图片移入存储，数据库行只保留哈希和大小，否则以流的方式写入image_data。
+     * 主键冲突时换新ID重试，最多MAX_ID_ATTEMPTS次
+     */
+    public String saveAlbum(AlbumInfo albumInfo, StagedImage image) {
+        String sql = "INSERT INTO albums (id, artist, title, year, image_data, image_hash, image_size) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try {
+            image = toImageStore(image);
+        } catch (IOException e) {
+            LOGGER.error("Error storing album image", e);
             return null;
         }
+
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                String albumId = generateUniqueAlbumId();
+                try (Connection conn = DBConnectionPool.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql);
+                     InputStream imageStream = image.openDataStream()) {
+
+                    pstmt.setString(1, albumId);
+                    pstmt.setString(2, albumInfo.getArtist());
+                    pstmt.setString(3, albumInfo.getTitle());
+                    pstmt.setString(4, albumInfo.getYear());
+                    bindImage(pstmt, 5, image, imageStream);
+
+                    int rowsAffected = pstmt.executeUpdate();
+                    if (rowsAffected > 0) {
+                        LOGGER.info("Album saved successfully with ID: {}", albumId);
+                        onAlbumSaved(albumId, albumInfo);
+                        return albumId;
+                    } else {
+                        LOGGER.error("Failed to save album: {}", albumInfo);
+                        return null;
+                    }
+
+                } catch (SQLException e) {
+                    if (isDuplicateKey(e) && attempt < MAX_ID_ATTEMPTS) {
+                        LOGGER.warn("Primary key conflict on album ID {}, retrying with new ID", albumId);
+                        continue;
+                    }
+                    LOGGER.error("Error saving album", e);
+                    return null;
+                } catch (IOException e) {
+                    LOGGER.error("Error reading staged album image", e);
+                    return null;
+                }
+            }
+        } finally {
+            SAVE_ALBUM_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 是否为主键重复（MySQL错误码1062）。多个实例的节点ID相同时（如都未配置id.nodeId而推导出相同的值）
+     * 可能生成已存在的ID，换一个新ID重试即可
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == MYSQL_DUPLICATE_KEY;
+    }
+
+    /**
+     * 配置了外部图片存储时把暂存在内存或临时文件中的图片移入存储，否则原样返回
+     */
+    private StagedImage toImageStore(StagedImage image) throws IOException {
+        if (imageStore == null || image.isExternal()) {
+            return image;
+        }
+        return image.moveTo(imageStore);
     }
 
     /**
-     * 获取专辑信息
+     * 绑定image_data、image_hash、image_size三个参数
+     */
+    private void bindImage(PreparedStatement pstmt, int startIndex, StagedImage image, InputStream imageStream)
+            throws SQLException {
+        if (image.isExternal()) {
+            pstmt.setNull(startIndex, Types.BLOB);
+        } else {
+            pstmt.setBinaryStream(startIndex, imageStream, image.getSize());
+        }
+        pstmt.setString(startIndex + 1, image.getHash());
+        pstmt.setLong(startIndex + 2, image.getSize());
+    }
+
+    /**
+     * 专辑写入成功后更新内存结构
+     */
+    private void onAlbumSaved(String albumId, AlbumInfo albumInfo) {
+        albumIdFilter.put(albumId);
+        albumCache.put(albumId, albumInfo);
+        albumSearchIndex.add(albumId, albumInfo.getArtist(), albumInfo.getTitle());
+    }
+
+    /**
+     * 获取专辑信息（优先读缓存，未命中时查询数据库并回填缓存）
      */
     public AlbumInfo getAlbumById(String albumId) {
+        AlbumInfo cached = albumCache.get(albumId);
+        if (cached != null) {
+            LOGGER.debug("Album cache hit for ID: {}", albumId);
+            return cached;
+        }
+
+        if (!albumIdFilter.mightContain(albumId)) {
+            LOGGER.debug("Album ID rejected by filter: {}", albumId);
+            return null;
+        }
+
         String sql = "SELECT artist, title, year FROM albums WHERE id = ?";
 
-        try (Connection conn = DBConnectionPool.getConnection();
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection(albumId);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, albumId);
@@ -99,6 +321,7 @@ public class AlbumDAO {
 
                     AlbumInfo albumInfo = new AlbumInfo(artist, title, year);
                     LOGGER.info("Retrieved album info: {}", albumInfo);
+                    albumCache.put(albumId, albumInfo);
                     return albumInfo;
                 }
             }
@@ -109,6 +332,240 @@ public class AlbumDAO {
         } catch (SQLException e) {
             LOGGER.error("Error getting album with ID: {}", albumId, e);
             return null;
+        } finally {
+            GET_ALBUM_BY_ID_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 批量获取专辑信息，返回的Map中只包含存在的专辑
+     * 先查缓存，剩余ID用 WHERE id IN (...) 分块查询，每块只占用一次连接
+     */
+    public Map<String, AlbumInfo> getAlbumsByIds(Collection<String> albumIds) {
+        Map<String, AlbumInfo> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String albumId : albumIds) {
+            AlbumInfo cached = albumCache.get(albumId);
+            if (cached != null) {
+                result.put(albumId, cached);
+            } else if (albumIdFilter.mightContain(albumId)) {
+                missing.add(albumId);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection(missing)) {
+            for (int from = 0; from < missing.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<String> chunk = missing.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, missing.size()));
+                String sql = "SELECT id, artist, title, year FROM albums WHERE id IN (" + placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            String albumId = rs.getString("id");
+                            AlbumInfo albumInfo = new AlbumInfo(rs.getString("artist"), rs.getString("title"),
+                                    rs.getString("year"));
+                            albumCache.put(albumId, albumInfo);
+                            result.put(albumId, albumInfo);
+                        }
+                    }
+                }
+            }
+
+            LOGGER.debug("Batch lookup of {} albums: {} from cache, {} queried, {} found",
+                    albumIds.size(), albumIds.size() - missing.size(), missing.size(), result.size());
+            return result;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error getting albums by IDs", e);
+            return null;
+        } finally {
+            GET_ALBUMS_BY_IDS_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 按(created_at, id)顺序分页列出专辑（键集分页）
+     * 从游标位置之后开始读取，使用idx_albums_created_id索引，深翻页与第一页代价相同；出错时返回null
+     * 配置了只读副本时从副本读取，最新创建的专辑可能在副本延迟之后才出现在列表中
+     */
+    public List<AlbumListing> listAlbums(Timestamp afterCreatedAt, String afterId, int limit) {
+        String sql = afterCreatedAt == null
+                ? "SELECT id, artist, title, year, created_at FROM albums " +
+                "ORDER BY created_at, id LIMIT ?"
+                : "SELECT id, artist, title, year, created_at FROM albums " +
+                "WHERE (created_at, id) > (?, ?) ORDER BY created_at, id LIMIT ?";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (afterCreatedAt != null) {
+                pstmt.setTimestamp(index++, afterCreatedAt);
+                pstmt.setString(index++, afterId);
+            }
+            pstmt.setInt(index, limit);
+
+            List<AlbumListing> albums = new ArrayList<>(limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String albumId = rs.getString("id");
+                    AlbumInfo albumInfo = new AlbumInfo(rs.getString("artist"), rs.getString("title"),
+                            rs.getString("year"));
+                    albumCache.put(albumId, albumInfo);
+                    albums.add(new AlbumListing(albumId, albumInfo, rs.getTimestamp("created_at")));
+                }
+            }
+            return albums;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error listing albums", e);
+            return null;
+        } finally {
+            LIST_ALBUMS_LATENCY.recordSince(start);
+        }
+    }
+
+    static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 获取专辑图片的元数据（不读取图片内容），专辑不存在时返回null
+     */
+    public ImageDescriptor getImageDescriptor(String albumId) {
+        if (!albumIdFilter.mightContain(albumId)) {
+            LOGGER.debug("Album ID rejected by filter: {}", albumId);
+            return null;
+        }
+
+        // 早期写入的专辑没有image_size，使用LENGTH(image_data)
+        String sql = "SELECT image_hash, COALESCE(image_size, LENGTH(image_data)) AS size, " +
+                "image_data IS NULL AS external FROM albums WHERE id = ?";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection(albumId);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, albumId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new ImageDescriptor(rs.getString("image_hash"), rs.getLong("size"),
+                            rs.getBoolean("external"));
+                }
+            }
+
+            LOGGER.warn("Album not found with ID: {}", albumId);
+            return null;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error getting image descriptor for album: {}", albumId, e);
+            return null;
+        } finally {
+            GET_IMAGE_DESCRIPTOR_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 把图片的[offset, offset + length)部分写入输出流，不会把整张图片读入内存
+     * 外部存储的图片使用FileChannel.transferTo，数据库中的图片用一条SUBSTRING查询流式读取
+     */
+    public boolean writeImage(String albumId, ImageDescriptor image, long offset, long length, OutputStream out)
+            throws IOException {
+        if (image.isExternal()) {
+            return writeImageFromStore(image, offset, length, out);
+        }
+        return writeImageFromDatabase(albumId, offset, length, out);
+    }
+
+    private boolean writeImageFromStore(ImageDescriptor image, long offset, long length, OutputStream out)
+            throws IOException {
+        if (imageStore == null) {
+            LOGGER.error("Image {} is stored externally but no image store is configured", image.getHash());
+            return false;
+        }
+
+        try (FileChannel channel = imageStore.open(image.getHash())) {
+            if (channel == null) {
+                LOGGER.error("Image file missing from image store: {}", image.getHash());
+                return false;
+            }
+
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            return position == end;
+        }
+    }
+
+    /**
+     * 一条查询取回整个范围：逐块SUBSTRING每次都要从头定位BLOB，总代价随图片大小平方增长。
+     * fetchSize为Integer.MIN_VALUE时MySQL驱动以流式结果集返回，结果只有一行，通过getBinaryStream写出
+     */
+    private boolean writeImageFromDatabase(String albumId, long offset, long length, OutputStream out)
+            throws IOException {
+        // SUBSTRING的起始位置从1开始
+        String sql = "SELECT SUBSTRING(image_data, ?, ?) FROM albums WHERE id = ?";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection(albumId);
+             PreparedStatement pstmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            pstmt.setLong(1, offset + 1);
+            pstmt.setLong(2, length);
+            pstmt.setString(3, albumId);
+
+            long written = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                try (InputStream in = rs.getBinaryStream(1)) {
+                    if (in == null) {
+                        return false;
+                    }
+                    byte[] buffer = new byte[64 * 1024];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                        written += read;
+                    }
+                }
+            }
+            return written == length;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error reading image data for album: {}", albumId, e);
+            return false;
+        } finally {
+            WRITE_IMAGE_LATENCY.recordSince(start);
         }
     }
 
@@ -116,9 +573,21 @@ public class AlbumDAO {
      * 检查专辑是否存在
      */
     public boolean albumExists(String albumId) {
+        // 布隆过滤器确定不存在时直接返回，不占用数据库连接
+        if (!albumIdFilter.mightContain(albumId)) {
+            LOGGER.debug("Album ID rejected by filter: {}", albumId);
+            return false;
+        }
+
+        // 缓存中已有的专辑一定存在
+        if (albumCache.get(albumId) != null) {
+            return true;
+        }
+
         String sql = "SELECT 1 FROM albums WHERE id = ?";
 
-        try (Connection conn = DBConnectionPool.getConnection();
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection(albumId);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, albumId);
@@ -132,24 +601,88 @@ public class AlbumDAO {
         } catch (SQLException e) {
             LOGGER.error("Error checking album existence for ID: {}", albumId, e);
             return false;
+        } finally {
+            ALBUM_EXISTS_LATENCY.recordSince(start);
+        }
+    }
+
+    private void clearImageStore() {
+        if (imageStore == null) {
+            return;
+        }
+        try {
+            imageStore.clear();
+        } catch (IOException e) {
+            LOGGER.error("Error clearing image store", e);
+        }
+    }
+
+    /**
+     * 逐行读取所有专辑的ID、artist和title（流式读取，用于启动时预热内存结构）
+     */
+    public boolean forEachAlbum(AlbumRowConsumer consumer) {
+        String sql = "SELECT id, artist, title FROM albums";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL驱动在fetchSize为Integer.MIN_VALUE时逐行流式返回结果
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            long count = 0;
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    consumer.accept(rs.getString(1), rs.getString(2), rs.getString(3));
+                    count++;
+                }
+            }
+
+            LOGGER.info("Scanned {} albums", count);
+            return true;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error scanning albums", e);
+            return false;
+        } finally {
+            FOR_EACH_ALBUM_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 重置后重建布隆过滤器：先清空（退回未就绪，查询全部放行），再扫描表中已有的专辑。
+     * 保存专辑时先提交再置位，清空前置位的专辑一定已经提交，会被这次扫描重新加入
+     */
+    private void rebuildAlbumIdFilter() {
+        if (!albumIdFilter.isEnabled()) {
+            return;
+        }
+        albumIdFilter.clear();
+        if (forEachAlbum((albumId, artist, title) -> albumIdFilter.put(albumId))) {
+            albumIdFilter.markReady();
+        } else {
+            LOGGER.warn("Album ID filter left disabled after reset, rescan failed");
         }
     }
 
     /**
-     * 生成唯一的专辑ID - 使用UUID确保唯一性
+     * 生成专辑ID - 按时间递增，新行总是追加在主键索引末尾
+     * 节点ID相同的实例之间可能生成相同的ID，由调用方在主键冲突时换新ID重试
      */
     private String generateUniqueAlbumId() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+        return albumIdGenerator.nextId();
     }
 
     /**
      * 清空所有数据库表数据
      */
     public boolean clearAllData() {
-        // 由于外键约束，需要先清空album_reviews表，然后再清空albums表
+        // 由于外键约束，需要先清空album_reviews表和album_review_counts表，然后再清空albums表
         String clearReviewsSql = "DELETE FROM album_reviews";
+        String clearReviewCountsSql = "DELETE FROM album_review_counts";
         String clearAlbumsSql = "DELETE FROM albums";
 
+        long start = System.nanoTime();
         try (Connection conn = DBConnectionPool.getConnection()) {
             // 开始事务
             conn.setAutoCommit(false);
@@ -161,6 +694,12 @@ public class AlbumDAO {
                     LOGGER.info("Truncated {} review data.", reviewsDeleted);
                 }
 
+                // 清空评论计数表
+                try (PreparedStatement stmt = conn.prepareStatement(clearReviewCountsSql)) {
+                    int countsDeleted = stmt.executeUpdate();
+                    LOGGER.info("Truncated {} review count data.", countsDeleted);
+                }
+
                 // 再清空专辑表
                 try (PreparedStatement stmt = conn.prepareStatement(clearAlbumsSql)) {
                     int albumsDeleted = stmt.executeUpdate();
@@ -169,6 +708,12 @@ public class AlbumDAO {
 
                 // 提交事务
                 conn.commit();
+                albumCache.invalidateAll();
+                rebuildAlbumIdFilter();
+                albumSearchIndex.clear();
+                ReviewCounterStore.getInstance().clear();
+                ReviewRanking.getInstance().clear();
+                clearImageStore();
                 LOGGER.info("Reset successfully.");
                 return true;
             } catch (SQLException e) {
@@ -183,6 +728,8 @@ public class AlbumDAO {
         } catch (SQLException e) {
             LOGGER.error("Error: ", e);
             return false;
+        } finally {
+            CLEAR_ALL_DATA_LATENCY.recordSince(start);
         }
     }
 }
\ No newline at end of file
@@ -1,44 +1,116 @@
 package com.albumstore.api.db;
 
 import com.albumstore.api.config.AppConfig;
+import com.albumstore.api.model.PoolStats;
+import com.albumstore.api.util.AlbumIdGenerator;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class DBConnectionPool {
     private static final Logger LOGGER = LogManager.getLogger(DBConnectionPool.class);
-    private static BasicDataSource dataSource;
+    private static MonitoredDataSource dataSource;
+    // 只读副本连接池，未配置db.reader.url时为null，读请求也走主库
+    private static MonitoredDataSource readerDataSource;
+    private static long readerMaxLagMillis;
+    private static boolean readerFallbackToWriter;
+    // 自动调整连接池大小的后台线程，未启用时为null
+    private static ScheduledExecutorService poolController;
 
     static {
         try {
             AppConfig config = AppConfig.getInstance();
 
             // 初始化连接池
-            dataSource = new BasicDataSource();
-            dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-            dataSource.setUrl(config.getDbUrl());
-            dataSource.setUsername(config.getDbUsername());
-            dataSource.setPassword(config.getDbPassword());
-
-            // 连接池配置
-            dataSource.setInitialSize(config.getDbInitialSize());
-            dataSource.setMaxTotal(config.getDbMaxTotal());
-            dataSource.setMaxIdle(config.getDbMaxIdle());
-            dataSource.setMinIdle(config.getDbMinIdle());
-            dataSource.setMaxWaitMillis(30000);
-
+            MonitoredDataSource.AdaptiveSizing adaptiveSizing = null;
+            if (config.isDbPoolAdaptiveEnabled()) {
+                adaptiveSizing = new MonitoredDataSource.AdaptiveSizing(config.getDbPoolAdaptiveMinTotal(),
+                        config.getDbPoolAdaptiveMaxTotal(), config.getDbPoolAdaptiveStep(),
+                        config.getDbPoolAdaptiveTargetWaitMs(), config.getDbPoolAdaptiveMaxQueryMs());
+            }
+            BasicDataSource writer = createDataSource(config.getDbUrl(), config.getDbInitialSize(),
+                    config.getDbMaxTotal(), config.getDbMaxIdle(), config.getDbMinIdle());
+            // 客户端预处理语句会把setBinaryStream的内容整个读入内存再拼进SQL；
+            // 服务端预处理语句按块发送（COM_STMT_SEND_LONG_DATA），写入image_data时堆占用才有上界
+            if (config.getDbDriverClassName().startsWith("com.mysql.") && config.isDbWriterServerPrepStmts()) {
+                writer.addConnectionProperty("useServerPrepStmts", "true");
+            }
+            dataSource = new MonitoredDataSource("writer", writer, config.getDbPoolMaxWaiters(), adaptiveSizing);
             LOGGER.info("Database connection pool initialized successfully");
+
+            // 初始化只读副本连接池
+            String readerUrl = config.getDbReaderUrl();
+            if (readerUrl != null && !readerUrl.trim().isEmpty()) {
+                BasicDataSource reader = createDataSource(readerUrl.trim(), config.getDbReaderInitialSize(),
+                        config.getDbReaderMaxTotal(), config.getDbReaderMaxIdle(), config.getDbReaderMinIdle());
+                reader.setDefaultReadOnly(true);
+                readerDataSource = new MonitoredDataSource("reader", reader, config.getDbPoolMaxWaiters(), null);
+                readerMaxLagMillis = config.getDbReaderMaxLagMs();
+                readerFallbackToWriter = config.isDbReaderFallbackToWriter();
+                LOGGER.info("Reader connection pool initialized: maxLagMs={}, fallbackToWriter={}",
+                        readerMaxLagMillis, readerFallbackToWriter);
+            }
+
+            if (dataSource.isAdaptive()) {
+                startPoolController(config.getDbPoolAdaptiveIntervalMs());
+            }
         } catch (Exception e) {
             LOGGER.error("Failed to initialize database connection pool", e);
             throw new RuntimeException("Database initialization failed", e);
         }
     }
 
+    private static BasicDataSource createDataSource(String url, int initialSize, int maxTotal, int maxIdle,
+                                                    int minIdle) {
+        AppConfig config = AppConfig.getInstance();
+
+        BasicDataSource ds = new BasicDataSource();
+        ds.setDriverClassName(config.getDbDriverClassName());
+        ds.setUrl(url);
+        ds.setUsername(config.getDbUsername());
+        ds.setPassword(config.getDbPassword());
+        // 让驱动把JDBC批量插入改写为多行INSERT（MySQL驱动专有的连接属性）
+        if (config.getDbDriverClassName().startsWith("com.mysql.")) {
+            ds.addConnectionProperty("rewriteBatchedStatements",
+                    String.valueOf(config.isDbRewriteBatchedStatements()));
+        }
+
+        // 连接池配置
+        ds.setInitialSize(initialSize);
+        ds.setMaxTotal(maxTotal);
+        ds.setMaxIdle(maxIdle);
+        ds.setMinIdle(minIdle);
+        ds.setMaxWaitMillis(config.getDbPoolMaxWaitMs());
+        return ds;
+    }
+
+    private static void startPoolController(long intervalMs) {
+        poolController = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poolController.scheduleWithFixedDelay(() -> {
+            try {
+                dataSource.adjustPoolSize();
+            } catch (Exception e) {
+                LOGGER.error("Error adjusting connection pool size", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        LOGGER.info("Adaptive connection pool sizing started, interval {} ms", intervalMs);
+    }
+
     /**
-     * 获取数据库连接
+     * 获取数据库连接（主库，用于写入和需要强一致的读取）
      */
     public static Connection getConnection() throws SQLException {
         try {
@@ -51,11 +123,95 @@ public class DBConnectionPool {
         }
     }
 
+    /**
+     * 获取只读连接，可以容忍副本延迟的读取使用；未配置副本时返回主库连接
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (readerDataSource == null) {
+            return getConnection();
+        }
+        try {
+            Connection conn = readerDataSource.getConnection();
+            LOGGER.debug("Reader connection obtained");
+            return conn;
+        } catch (SQLException e) {
+            if (!readerFallbackToWriter) {
+                LOGGER.error("Failed to get reader connection", e);
+                throw e;
+            }
+            LOGGER.warn("Failed to get reader connection, falling back to writer: {}", e.getMessage());
+            return getConnection();
+        }
+    }
+
+    /**
+     * 按专辑ID获取只读连接：专辑创建时间在副本最大延迟之内时读主库，保证刚创建的专辑能被读到
+     */
+    public static Connection getReadConnection(String albumId) throws SQLException {
+        return isRecentlyCreated(albumId) ? getConnection() : getReadConnection();
+    }
+
+    /**
+     * 批量读取时只要有一个专辑是刚创建的就读主库
+     */
+    public static Connection getReadConnection(Collection<String> albumIds) throws SQLException {
+        if (readerDataSource != null) {
+            for (String albumId : albumIds) {
+                if (isRecentlyCreated(albumId)) {
+                    return getConnection();
+                }
+            }
+        }
+        return getReadConnection();
+    }
+
+    /**
+     * 根据ID中的时间戳判断专辑是否可能还没有同步到副本；无法解析时间戳的早期ID视为已同步
+     */
+    private static boolean isRecentlyCreated(String albumId) {
+        if (readerDataSource == null) {
+            return false;
+        }
+        long createdAt = AlbumIdGenerator.timestampOf(albumId);
+        return createdAt >= 0 && System.currentTimeMillis() - createdAt < readerMaxLagMillis;
+    }
+
+    /**
+     * 所有连接池最多可以同时借出的连接数（自动调整时按上限计算）
+     */
+    public static int getMaxConnections() {
+        AppConfig config = AppConfig.getInstance();
+        int max = config.isDbPoolAdaptiveEnabled() ? config.getDbPoolAdaptiveMaxTotal() : config.getDbMaxTotal();
+        if (readerDataSource != null) {
+            max += config.getDbReaderMaxTotal();
+        }
+        return max;
+    }
+
+    /**
+     * 各连接池的实时统计，按writer、reader顺序
+     */
+    public static Map<String, PoolStats> getPoolStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        stats.put(dataSource.getName(), dataSource.getStats());
+        if (readerDataSource != null) {
+            stats.put(readerDataSource.getName(), readerDataSource.getStats());
+        }
+        return stats;
+    }
+
     /**
      * 关闭数据库连接池
      */
     public static void closePool() {
+        if (poolController != null) {
+            poolController.shutdownNow();
+        }
         try {
+            if (readerDataSource != null) {
+                readerDataSource.close();
+                LOGGER.info("Reader connection pool closed");
+            }
             if (dataSource != null) {
                 dataSource.close();
                 LOGGER.info("Database connection pool closed");
@@ -64,4 +220,4 @@ public class DBConnectionPool {
             LOGGER.error("Error closing database connection pool", e);
         }
     }
-}
\ No newline at end of file
+}
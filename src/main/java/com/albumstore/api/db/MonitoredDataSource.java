@@ -0,0 +1,352 @@
+package com.albumstore.api.db;
+
+import com.albumstore.api.metrics.LatencyHistogram;
+import com.albumstore.api.metrics.MetricsRegistry;
+import com.albumstore.api.model.LatencyStats;
+import com.albumstore.api.model.PoolStats;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.DelegatingConnection;
+import org.apache.commons.dbcp2.DelegatingPreparedStatement;
+import org.apache.commons.dbcp2.DelegatingStatement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带监控的连接池：统计等待线程数、获取连接的等待时间、连接被借出的时长和语句执行时间，
+ * 等待线程过多时直接拒绝，并可以按观测到的等待时间和语句执行时间调整maxTotal。
+ * 借出时长包含持有连接期间的客户端I/O（如流式写出图片），不能反映数据库本身的快慢
+ */
+class MonitoredDataSource {
+    private static final Logger LOGGER = LogManager.getLogger(MonitoredDataSource.class);
+
+    private final String name;
+    private final BasicDataSource dataSource;
+    private final int maxWaiters; // 0表示不限制
+    private final AdaptiveSizing adaptiveSizing; // 为null时不自动调整
+
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicInteger peakBorrowed = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram waitTime;
+    private final LatencyHistogram borrowTime;
+    private final LatencyHistogram queryTime;
+
+    // 上一次调整时的快照，用于计算区间内的分布
+    private LatencyHistogram.Snapshot lastWaitSnapshot;
+    private LatencyHistogram.Snapshot lastQuerySnapshot;
+
+    MonitoredDataSource(String name, BasicDataSource dataSource, int maxWaiters, AdaptiveSizing adaptiveSizing) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.maxWaiters = maxWaiters;
+        this.adaptiveSizing = adaptiveSizing;
+        this.waitTime = MetricsRegistry.getInstance().histogram("albumstore_db_pool_wait_seconds",
+                "Time spent waiting in getConnection", "pool", name);
+        this.borrowTime = MetricsRegistry.getInstance().histogram("albumstore_db_pool_borrow_seconds",
+                "Time a connection stays borrowed", "pool", name);
+        this.queryTime = MetricsRegistry.getInstance().histogram("albumstore_db_pool_query_seconds",
+                "Statement execution time", "pool", name);
+        this.lastWaitSnapshot = waitTime.snapshot();
+        this.lastQuerySnapshot = queryTime.snapshot();
+        registerMetrics();
+    }
+
+    private void registerMetrics() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("albumstore_db_pool_active", "Connections currently borrowed", "pool", name,
+                dataSource::getNumActive);
+        registry.gauge("albumstore_db_pool_idle", "Idle connections", "pool", name, dataSource::getNumIdle);
+        registry.gauge("albumstore_db_pool_max_total", "Current maxTotal of the pool", "pool", name,
+                dataSource::getMaxTotal);
+        registry.gauge("albumstore_db_pool_waiters", "Threads waiting in getConnection", "pool", name, waiters::get);
+        registry.counter("albumstore_db_pool_rejected_total", "getConnection calls rejected by admission control",
+                "pool", name, rejected::sum);
+        registry.counter("albumstore_db_pool_failures_total", "getConnection calls that failed or timed out",
+                "pool", name, failures::sum);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isAdaptive() {
+        return adaptiveSizing != null;
+    }
+
+    /**
+     * 获取连接；等待线程数达到上限时立即抛出异常，而不是排队等待maxWaitMillis
+     * 先占位再检查，并发调用时等待线程数不会超过上限
+     */
+    Connection getConnection() throws SQLException {
+        int waiting = waiters.incrementAndGet();
+        if (maxWaiters > 0 && waiting > maxWaiters) {
+            waiters.decrementAndGet();
+            rejected.increment();
+            throw new SQLTransientConnectionException(
+                    "Connection pool " + name + " is saturated: " + (waiting - 1) + " threads waiting");
+        }
+
+        Connection conn;
+        long start = System.nanoTime();
+        try {
+            conn = dataSource.getConnection();
+        } catch (SQLException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            waiters.decrementAndGet();
+            waitTime.recordSince(start);
+        }
+
+        int current = borrowed.incrementAndGet();
+        peakBorrowed.accumulateAndGet(current, Math::max);
+        return new BorrowedConnection(conn);
+    }
+
+    /**
+     * 按上一个区间的统计调整maxTotal：
+     * 等待时间超过目标且语句执行时间正常时扩容；语句执行时间过高（数据库变慢）时缩容，避免继续加压；
+     * 没有等待且借出连接数远低于上限时缩容
+     */
+    void adjustPoolSize() {
+        if (adaptiveSizing == null) {
+            return;
+        }
+
+        LatencyHistogram.Snapshot waitSnapshot = waitTime.snapshot();
+        LatencyHistogram.Snapshot querySnapshot = queryTime.snapshot();
+        LatencyHistogram.Snapshot waitDelta = waitSnapshot.minus(lastWaitSnapshot);
+        LatencyHistogram.Snapshot queryDelta = querySnapshot.minus(lastQuerySnapshot);
+        lastWaitSnapshot = waitSnapshot;
+        lastQuerySnapshot = querySnapshot;
+        int peak = peakBorrowed.getAndSet(borrowed.get());
+
+        if (waitDelta.getCount() == 0) {
+            return;
+        }
+
+        long waitP95Millis = waitDelta.getPercentile(95) / 1000;
+        long queryP95Millis = queryDelta.getPercentile(95) / 1000;
+        int current = dataSource.getMaxTotal();
+        int target = current;
+
+        if (queryP95Millis > adaptiveSizing.maxQueryMillis) {
+            target = Math.max(adaptiveSizing.minTotal, current - adaptiveSizing.step);
+        } else if (waitP95Millis > adaptiveSizing.targetWaitMillis) {
+            target = Math.min(adaptiveSizing.maxTotal, current + adaptiveSizing.step);
+        } else if (peak < current - 2 * adaptiveSizing.step) {
+            target = Math.max(adaptiveSizing.minTotal, current - adaptiveSizing.step);
+        }
+
+        if (target != current) {
+            dataSource.setMaxTotal(target);
+            if (dataSource.getMaxIdle() > target) {
+                dataSource.setMaxIdle(target);
+            }
+            LOGGER.info("Resized connection pool {}: maxTotal {} -> {} (wait p95={}ms, query p95={}ms, peak={})",
+                    name, current, target, waitP95Millis, queryP95Millis, peak);
+        }
+    }
+
+    PoolStats getStats() {
+        PoolStats stats = new PoolStats();
+        stats.setName(name);
+        stats.setActive(dataSource.getNumActive());
+        stats.setIdle(dataSource.getNumIdle());
+        stats.setMaxTotal(dataSource.getMaxTotal());
+        stats.setMaxIdle(dataSource.getMaxIdle());
+        stats.setMinIdle(dataSource.getMinIdle());
+        stats.setMaxWaitMillis(dataSource.getMaxWaitMillis());
+        stats.setWaiters(waiters.get());
+        stats.setMaxWaiters(maxWaiters);
+        stats.setRejected(rejected.sum());
+        stats.setFailures(failures.sum());
+        stats.setAdaptive(adaptiveSizing != null);
+        stats.setWaitTime(LatencyStats.from(waitTime.snapshot()));
+        stats.setBorrowTime(LatencyStats.from(borrowTime.snapshot()));
+        stats.setQueryTime(LatencyStats.from(queryTime.snapshot()));
+        return stats;
+    }
+
+    void close() throws SQLException {
+        dataSource.close();
+    }
+
+    /**
+     * 自动调整maxTotal的参数
+     */
+    static class AdaptiveSizing {
+        final int minTotal;
+        final int maxTotal;
+        final int step;
+        final long targetWaitMillis;
+        final long maxQueryMillis;
+
+        AdaptiveSizing(int minTotal, int maxTotal, int step, long targetWaitMillis, long maxQueryMillis) {
+            this.minTotal = minTotal;
+            this.maxTotal = maxTotal;
+            this.step = step;
+            this.targetWaitMillis = targetWaitMillis;
+            this.maxQueryMillis = maxQueryMillis;
+        }
+    }
+
+    /**
+     * 借出的连接，在close时记录借出时长；DAO使用的几种创建语句的方法返回记录执行时间的语句，
+     * 其余重载沿用DBCP的包装，不记录执行时间
+     */
+    private final class BorrowedConnection extends DelegatingConnection<Connection> {
+        private final long borrowedAt = System.nanoTime();
+        private boolean returned = false;
+
+        BorrowedConnection(Connection delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (!returned) {
+                returned = true;
+                borrowed.decrementAndGet();
+                borrowTime.recordSince(borrowedAt);
+            }
+            super.close();
+        }
+
+        @Override
+        public Statement createStatement() throws SQLException {
+            checkOpen();
+            return new TimedStatement(this, getDelegateInternal().createStatement());
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+            checkOpen();
+            return new TimedStatement(this,
+                    getDelegateInternal().createStatement(resultSetType, resultSetConcurrency));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            checkOpen();
+            return new TimedPreparedStatement(this, getDelegateInternal().prepareStatement(sql));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+                throws SQLException {
+            checkOpen();
+            return new TimedPreparedStatement(this,
+                    getDelegateInternal().prepareStatement(sql, resultSetType, resultSetConcurrency));
+        }
+    }
+
+    /**
+     * 记录execute*执行时间的语句（流式结果集只包含执行时间，不包含之后逐行读取的时间）
+     */
+    private final class TimedStatement extends DelegatingStatement {
+        TimedStatement(DelegatingConnection<?> connection, Statement statement) {
+            super(connection, statement);
+        }
+
+        @Override
+        public ResultSet executeQuery(String sql) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.executeQuery(sql);
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.executeUpdate(sql);
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+
+        @Override
+        public boolean execute(String sql) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.execute(sql);
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.executeBatch();
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+    }
+
+    /**
+     * 记录execute*执行时间的预编译语句
+     */
+    private final class TimedPreparedStatement extends DelegatingPreparedStatement {
+        TimedPreparedStatement(DelegatingConnection<?> connection, PreparedStatement statement) {
+            super(connection, statement);
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.executeQuery();
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.executeUpdate();
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.execute();
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.executeBatch();
+            } finally {
+                queryTime.recordSince(start);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.albumstore.api.db;
 
+import com.albumstore.api.metrics.LatencyHistogram;
+import com.albumstore.api.metrics.MetricsRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -7,11 +9,66 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ReviewDAO {
     private static final Logger LOGGER = LogManager.getLogger(ReviewDAO.class);
+    private static final int IN_CLAUSE_CHUNK_SIZE = 500; // 批量查询时每条IN语句的最大ID数
+
+    // 各方法数据库访问耗时，从取连接之前开始计时，包含在连接池中的等待
+    private static final LatencyHistogram GET_REVIEW_STATS_FROM_COUNTERS_LATENCY =
+            MetricsRegistry.daoLatency("getReviewStatsFromCounters");
+    private static final LatencyHistogram LOAD_REVIEW_COUNTS_LATENCY =
+            MetricsRegistry.daoLatency("loadReviewCounts");
+    private static final LatencyHistogram GET_REVIEW_STATS_BY_GROUPING_LATENCY =
+            MetricsRegistry.daoLatency("getReviewStatsByGrouping");
+    private static final LatencyHistogram GET_REVIEW_STATS_BULK_LATENCY =
+            MetricsRegistry.daoLatency("getReviewStatsBulk");
+    private static final LatencyHistogram FOR_EACH_REVIEW_COUNT_LATENCY =
+            MetricsRegistry.daoLatency("forEachReviewCount");
+    private static final LatencyHistogram REBUILD_REVIEW_COUNTS_LATENCY =
+            MetricsRegistry.daoLatency("rebuildReviewCounts");
+    private static final LatencyHistogram APPLY_REVIEW_COUNT_DELTAS_LATENCY =
+            MetricsRegistry.daoLatency("applyReviewCountDeltas");
+
+    /**
+     * 逐行接收专辑评论计数
+     */
+    public interface ReviewCountConsumer {
+        void accept(String albumId, long likes, long dislikes);
+    }
+
+    // album_review_counts是否可用（触发器已建立且回填完成），不可用时回退到GROUP BY统计
+    private static volatile boolean counterTableReady = false;
+
+    public static boolean isCounterTableReady() {
+        return counterTableReady;
+    }
+
+    public static void setCounterTableReady(boolean ready) {
+        counterTableReady = ready;
+        LOGGER.info("Review stats source: {}", ready ? "album_review_counts"
+                : aggregationMode ? "unavailable" : "album_reviews GROUP BY");
+    }
+
+    // 聚合计数模式下评论只累加到album_review_counts，album_reviews中没有这些评论，计数表不可用时不能回退到GROUP BY
+    private static volatile boolean aggregationMode = false;
+
+    public static void setAggregationMode(boolean enabled) {
+        aggregationMode = enabled;
+    }
+
+    /**
+     * 评论统计是否可以查询：计数表可用，或者不在聚合计数模式下（可以回退到GROUP BY）
+     */
+    public static boolean isReviewStatsAvailable() {
+        return counterTableReady || !aggregationMode;
+    }
 
     /**
      * 获取专辑喜欢数量
@@ -29,11 +86,86 @@ public class ReviewDAO {
         return getReviewStats(albumId).get("dislike");
     }
 
+    /**
+     * 获取专辑的所有评论统计信息
+     * 计数表可用时读取album_review_counts中的一行，否则回退到GROUP BY查询
+     */
+    public Map<String, Integer> getReviewStats(String albumId) {
+        if (counterTableReady) {
+            return getReviewStatsFromCounters(albumId);
+        }
+        return getReviewStatsByGrouping(albumId);
+    }
+
+    /**
+     * 从计数表读取评论统计（主键查询，O(1)）
+     */
+    public Map<String, Integer> getReviewStatsFromCounters(String albumId) {
+        String sql = "SELECT likes, dislikes FROM album_review_counts WHERE album_id = ?";
+
+        // 初始化结果Map，没有计数行时表示尚无评论
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("like", 0);
+        stats.put("dislike", 0);
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, albumId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    stats.put("like", rs.getInt("likes"));
+                    stats.put("dislike", rs.getInt("dislikes"));
+                }
+            }
+
+            LOGGER.debug("Retrieved review counters for album {}: likes={}, dislikes={}",
+                    albumId, stats.get("like"), stats.get("dislike"));
+            return stats;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error getting review counters for album: {}", albumId, e);
+            return stats;  // 出错时返回初始化的默认值
+        } finally {
+            GET_REVIEW_STATS_FROM_COUNTERS_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 从主库的计数表读取 {likes, dislikes}，用于初始化内存计数的基数；没有计数行时为 {0, 0}，出错时返回null
+     * 不能像getReviewStatsFromCounters那样在出错时返回0，否则0会被当作基数一直累加下去
+     */
+    public long[] loadReviewCounts(String albumId) {
+        String sql = "SELECT likes, dislikes FROM album_review_counts WHERE album_id = ?";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, albumId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new long[]{rs.getLong("likes"), rs.getLong("dislikes")};
+                }
+                return new long[]{0, 0};
+            }
+
+        } catch (SQLException e) {
+            LOGGER.error("Error loading review counters for album: {}", albumId, e);
+            return null;
+        } finally {
+            LOAD_REVIEW_COUNTS_LATENCY.recordSince(start);
+        }
+    }
+
     /**
      * 获取专辑的所有评论统计信息（一次查询获取所有类型数量）
      * 使用组合索引idx_album_review进行优化
      */
-    public Map<String, Integer> getReviewStats(String albumId) {
+    private Map<String, Integer> getReviewStatsByGrouping(String albumId) {
         String sql = "SELECT review_type, COUNT(*) AS count FROM album_reviews " +
                 "WHERE album_id = ? GROUP BY review_type";
 
@@ -42,7 +174,8 @@ public class ReviewDAO {
         stats.put("like", 0);
         stats.put("dislike", 0);
 
-        try (Connection conn = DBConnectionPool.getConnection();
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, albumId);
@@ -63,6 +196,164 @@ public class ReviewDAO {
         } catch (SQLException e) {
             LOGGER.error("Error getting review stats for album: {}", albumId, e);
             return stats;  // 出错时返回初始化的默认值
+        } finally {
+            GET_REVIEW_STATS_BY_GROUPING_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 批量获取评论统计，返回的Map只包含存在的专辑；出错或评论统计不可用时返回null
+     * 通过与albums表LEFT JOIN，在同一条查询中同时确认专辑存在并取得计数
+     */
+    public Map<String, Map<String, Integer>> getReviewStatsBulk(Collection<String> albumIds) {
+        if (!isReviewStatsAvailable()) {
+            LOGGER.warn("Review counters are not available in aggregation mode, skipping bulk review stats");
+            return null;
+        }
+        Map<String, Map<String, Integer>> result = new HashMap<>();
+        List<String> ids = new ArrayList<>(albumIds);
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getReadConnection(albumIds)) {
+            for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<String> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+                String placeholders = AlbumDAO.placeholders(chunk.size());
+                String sql = counterTableReady
+                        ? "SELECT a.id, COALESCE(c.likes, 0) AS likes, COALESCE(c.dislikes, 0) AS dislikes " +
+                        "FROM albums a LEFT JOIN album_review_counts c ON c.album_id = a.id " +
+                        "WHERE a.id IN (" + placeholders + ")"
+                        : "SELECT a.id, COALESCE(SUM(r.review_type = 'like'), 0) AS likes, " +
+                        "COALESCE(SUM(r.review_type = 'dislike'), 0) AS dislikes " +
+                        "FROM albums a LEFT JOIN album_reviews r ON r.album_id = a.id " +
+                        "WHERE a.id IN (" + placeholders + ") GROUP BY a.id";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Map<String, Integer> stats = new HashMap<>();
+                            stats.put("like", rs.getInt("likes"));
+                            stats.put("dislike", rs.getInt("dislikes"));
+                            result.put(rs.getString("id"), stats);
+                        }
+                    }
+                }
+            }
+
+            LOGGER.debug("Retrieved bulk review stats: {} requested, {} found", ids.size(), result.size());
+            return result;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error getting bulk review stats", e);
+            return null;
+        } finally {
+            GET_REVIEW_STATS_BULK_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 流式读取所有有评论的专辑的计数（用于排行榜加载与对账）
+     * 结果用于初始化长期存在的排行榜，读从库时初始排名会缺少复制延迟内的评论，因此读主库
+     */
+    public boolean forEachReviewCount(ReviewCountConsumer consumer) {
+        if (!isReviewStatsAvailable()) {
+            LOGGER.warn("Review counters are not available in aggregation mode, skipping review count scan");
+            return false;
+        }
+        String sql = counterTableReady
+                ? "SELECT album_id, likes, dislikes FROM album_review_counts"
+                : "SELECT album_id, SUM(review_type = 'like') AS likes, SUM(review_type = 'dislike') AS dislikes " +
+                "FROM album_reviews GROUP BY album_id";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL驱动在fetchSize为Integer.MIN_VALUE时逐行流式返回结果
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    consumer.accept(rs.getString(1), rs.getLong(2), rs.getLong(3));
+                }
+            }
+            return true;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error scanning review counts", e);
+            return false;
+        } finally {
+            FOR_EACH_REVIEW_COUNT_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 根据album_reviews重新计算album_review_counts（回填已有数据）
+     * 写入的是绝对值，会覆盖聚合计数模式下直接累加到计数表的评论，聚合计数模式下不能调用
+     */
+    public boolean rebuildReviewCounts() {
+        if (aggregationMode) {
+            LOGGER.warn("Refusing to rebuild review counters from album_reviews in aggregation mode");
+            return false;
+        }
+        String sql = "INSERT INTO album_review_counts (album_id, likes, dislikes) " +
+                "SELECT album_id, SUM(review_type = 'like'), SUM(review_type = 'dislike') " +
+                "FROM album_reviews GROUP BY album_id " +
+                "ON DUPLICATE KEY UPDATE likes = VALUES(likes), dislikes = VALUES(dislikes)";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            int rowsAffected = stmt.executeUpdate(sql);
+            LOGGER.info("Rebuilt review counters, {} rows affected", rowsAffected);
+            return true;
+
+        } catch (SQLException e) {
+            LOGGER.error("Error rebuilding review counters", e);
+            return false;
+        } finally {
+            REBUILD_REVIEW_COUNTS_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * 批量把评论计数增量累加到album_review_counts（聚合计数模式下使用）
+     * deltas的值为 {likes增量, dislikes增量}
+     */
+    public boolean applyReviewCountDeltas(Map<String, long[]> deltas) {
+        String sql = "INSERT INTO album_review_counts (album_id, likes, dislikes) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE likes = likes + VALUES(likes), dislikes = dislikes + VALUES(dislikes)";
+
+        long start = System.nanoTime();
+        try (Connection conn = DBConnectionPool.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<String, long[]> entry : deltas.entrySet()) {
+                    pstmt.setString(1, entry.getKey());
+                    pstmt.setLong(2, entry.getValue()[0]);
+                    pstmt.setLong(3, entry.getValue()[1]);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                LOGGER.error("Error applying review count deltas", e);
+                return false;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error applying review count deltas", e);
+            return false;
+        } finally {
+            APPLY_REVIEW_COUNT_DELTAS_LATENCY.recordSince(start);
         }
     }
 
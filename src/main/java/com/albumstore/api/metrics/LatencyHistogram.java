@@ -0,0 +1,186 @@
+package com.albumstore.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 低开销的延迟直方图（对数-线性分桶，与HdrHistogram相同的思路）
+ * 以微秒记录，每个2的幂区间再均分为32个子桶，相对误差约3%，最大可记录约19小时。
+ * 记录时只做一次数组下标计算和一次原子自增，不分配对象；
+ * 计数按线程分散到多个分片，读取时合并，避免多线程争用同一个计数器。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 36;
+    private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    // 每个分片的布局：[0, BUCKET_COUNT)为分桶计数，之后依次为总和、最大值
+    private static final int SUM_SLOT = BUCKET_COUNT;
+    private static final int MAX_SLOT = BUCKET_COUNT + 1;
+    private static final int STRIPE_LENGTH = BUCKET_COUNT + 2;
+    private static final int STRIPE_COUNT = stripeCount();
+
+    private final String name;
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPE_COUNT];
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new AtomicLongArray(STRIPE_LENGTH);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 记录从startNanos（System.nanoTime()）到现在的耗时
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        AtomicLongArray stripe = stripes[(int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1))];
+        stripe.incrementAndGet(bucketIndex(value));
+        stripe.addAndGet(SUM_SLOT, value);
+        long max;
+        while (value > (max = stripe.get(MAX_SLOT))) {
+            if (stripe.compareAndSet(MAX_SLOT, max, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 合并所有分片得到快照
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += stripe.get(i);
+            }
+            sum += stripe.get(SUM_SLOT);
+            max = Math.max(max, stripe.get(MAX_SLOT));
+        }
+        return new Snapshot(counts, sum, max);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * 分桶的上界（包含）
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * 分片数取不小于CPU数的2的幂，最多8个
+     */
+    private static int stripeCount() {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        return processors <= 1 ? 1 : Integer.highestOneBit(processors - 1) << 1;
+    }
+
+    /**
+     * 直方图快照，数值单位为微秒
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            this.sum = sum;
+            this.max = max;
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            this.count = total;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * 百分位数（0-100），返回所在分桶的上界，不超过记录到的最大值
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 小于等于给定值的记录数
+         */
+        public long getCountAtOrBelow(long micros) {
+            long total = 0;
+            for (int i = 0; i < counts.length && bucketUpperBound(i) <= micros; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+
+        /**
+         * 与之前的快照相减，得到这段时间内的分布；最大值无法相减，沿用当前值
+         */
+        public Snapshot minus(Snapshot previous) {
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - previous.counts[i];
+            }
+            return new Snapshot(delta, sum - previous.sum, max);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.albumstore.api.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 指标注册表，以Prometheus文本格式输出
+ * 直方图在注册时创建，调用方保存在字段中直接记录，记录路径上没有查找；
+ * 计数器和仪表盘在输出时通过回调读取，不需要额外维护。
+ * 直方图按histogram类型输出累计的桶计数，由Prometheus用rate()和histogram_quantile()
+ * 计算任意时间窗口、跨实例聚合后的分位数，不在进程内输出自启动以来的分位数。
+ */
+public class MetricsRegistry {
+    private static MetricsRegistry instance;
+
+    /**
+     * 输出的桶上界（微秒）和对应的le标签（秒）
+     * 内部的对数线性桶边界不是整数毫秒，跨过上界的那个内部桶不计入，计数最多偏少约3%
+     */
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000,
+            250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+    private static final String[] BUCKET_LABELS = {
+            "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1",
+            "0.25", "0.5", "1", "2.5", "5", "10"};
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Servlet路由的请求耗时
+     */
+    public static LatencyHistogram routeLatency(String route) {
+        return getInstance().histogram("albumstore_http_request_duration_seconds",
+                "Request latency by route", "route", route);
+    }
+
+    /**
+     * DAO方法的数据库访问耗时，包含等待连接的时间；单独的等待时间见albumstore_db_pool_wait_seconds
+     */
+    public static LatencyHistogram daoLatency(String method) {
+        return getInstance().histogram("albumstore_dao_duration_seconds",
+                "Database access latency by DAO method, including connection pool wait", "method", method);
+    }
+
+    /**
+     * 向Producer发送消息的耗时
+     */
+    public static LatencyHistogram producerLatency(String operation) {
+        return getInstance().histogram("albumstore_producer_duration_seconds",
+                "Producer HTTP call latency by operation", "operation", operation);
+    }
+
+    /**
+     * 获取（或创建）带一个标签的直方图，同一名称和标签值返回同一个实例
+     */
+    public synchronized LatencyHistogram histogram(String name, String help, String labelName, String labelValue) {
+        Family family = family(name, help, "histogram", labelName);
+        Object existing = family.children.get(labelValue);
+        if (existing instanceof LatencyHistogram) {
+            return (LatencyHistogram) existing;
+        }
+        LatencyHistogram histogram = new LatencyHistogram(name + "{" + labelName + "=" + labelValue + "}");
+        family.children.put(labelValue, histogram);
+        return histogram;
+    }
+
+    /**
+     * 注册单调递增的计数器，输出时调用supplier读取当前值
+     */
+    public synchronized void counter(String name, String help, String labelName, String labelValue,
+                                     LongSupplier supplier) {
+        family(name, help, "counter", labelName).children.put(labelValue, supplier);
+    }
+
+    /**
+     * 注册仪表盘，输出时调用supplier读取当前值
+     */
+    public synchronized void gauge(String name, String help, String labelName, String labelValue,
+                                   LongSupplier supplier) {
+        family(name, help, "gauge", labelName).children.put(labelValue, supplier);
+    }
+
+    /**
+     * 以Prometheus文本格式（0.0.4）输出所有指标，耗时单位为秒
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        List<Family> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(families.size());
+            for (Family family : families.values()) {
+                snapshot.add(family.copy());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(256);
+        for (Family family : snapshot) {
+            sb.setLength(0);
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+
+            for (Map.Entry<String, Object> child : family.children.entrySet()) {
+                String labels = family.labelName == null ? ""
+                        : family.labelName + "=\"" + escapeLabel(child.getKey()) + "\"";
+                Object value = child.getValue();
+
+                if (value instanceof LatencyHistogram) {
+                    LatencyHistogram.Snapshot histogram = ((LatencyHistogram) value).snapshot();
+                    for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+                        appendBucket(sb, family.name, labels, BUCKET_LABELS[i],
+                                histogram.getCountAtOrBelow(BUCKET_BOUNDS_MICROS[i]));
+                    }
+                    appendBucket(sb, family.name, labels, "+Inf", histogram.getCount());
+                    appendSample(sb, family.name + "_sum", labels, microsToSeconds(histogram.getSum()));
+                    appendSample(sb, family.name + "_count", labels, Long.toString(histogram.getCount()));
+                } else {
+                    appendSample(sb, family.name, labels, Long.toString(((LongSupplier) value).getAsLong()));
+                }
+            }
+            out.write(sb.toString());
+        }
+        out.flush();
+    }
+
+    private Family family(String name, String help, String type, String labelName) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = new Family(name, help, type, labelName);
+            families.put(name, family);
+        } else if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    private static void appendSample(StringBuilder sb, String name, String labels, String value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static void appendBucket(StringBuilder sb, String name, String labels, String le, long count) {
+        sb.append(name).append("_bucket{");
+        if (!labels.isEmpty()) {
+            sb.append(labels).append(',');
+        }
+        sb.append("le=\"").append(le).append("\"} ").append(count).append('\n');
+    }
+
+    private static String microsToSeconds(long micros) {
+        return Double.toString(micros / 1_000_000.0);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * 同名指标的集合，children的值为LatencyHistogram或LongSupplier
+     */
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        final String labelName;
+        final Map<String, Object> children = new LinkedHashMap<>();
+
+        Family(String name, String help, String type, String labelName) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labelName = labelName;
+        }
+
+        Family copy() {
+            Family copy = new Family(name, help, type, labelName);
+            copy.children.putAll(children);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.albumstore.api.model;
+
+import java.util.List;
+import java.util.Map;
+
+public class AlbumBatchResult {
+    private Map<String, AlbumInfo> albums;
+    private List<String> notFound;
+
+    public AlbumBatchResult() {
+    }
+
+    public AlbumBatchResult(Map<String, AlbumInfo> albums, List<String> notFound) {
+        this.albums = albums;
+        this.notFound = notFound;
+    }
+
+    public Map<String, AlbumInfo> getAlbums() {
+        return albums;
+    }
+
+    public void setAlbums(Map<String, AlbumInfo> albums) {
+        this.albums = albums;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<String> notFound) {
+        this.notFound = notFound;
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumBatchResult{" +
+                "albums=" + albums +
+                ", notFound=" + notFound +
+                '}';
+    }
+}
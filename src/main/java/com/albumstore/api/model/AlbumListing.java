@@ -0,0 +1,39 @@
+package com.albumstore.api.model;
+
+import java.sql.Timestamp;
+
+/**
+ * 专辑列表中的一项，created_at用于生成下一页的游标
+ */
+public class AlbumListing {
+    private final String albumID;
+    private final AlbumInfo albumInfo;
+    private final Timestamp createdAt;
+
+    public AlbumListing(String albumID, AlbumInfo albumInfo, Timestamp createdAt) {
+        this.albumID = albumID;
+        this.albumInfo = albumInfo;
+        this.createdAt = createdAt;
+    }
+
+    public String getAlbumID() {
+        return albumID;
+    }
+
+    public AlbumInfo getAlbumInfo() {
+        return albumInfo;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumListing{" +
+                "albumID='" + albumID + '\'' +
+                ", albumInfo=" + albumInfo +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.albumstore.api.model;
+
+/**
+ * 批量导入请求中的一行：专辑信息以及Base64编码的图片或已存储图片的SHA-256
+ */
+public class BulkAlbumRecord {
+    private String artist;
+    private String title;
+    private String year;
+    private String image;
+    private String imageHash;
+
+    public BulkAlbumRecord() {
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public void setArtist(String artist) {
+        this.artist = artist;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getYear() {
+        return year;
+    }
+
+    public void setYear(String year) {
+        this.year = year;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkAlbumRecord{" +
+                "artist='" + artist + '\'' +
+                ", title='" + title + '\'' +
+                ", year='" + year + '\'' +
+                ", imageHash='" + imageHash + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package com.albumstore.api.model;
+
+import com.albumstore.api.metrics.LatencyHistogram;
+
+public class LatencyStats {
+    private long count;
+    private double meanMicros;
+    private long p50Micros;
+    private long p95Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+
+    public LatencyStats() {
+    }
+
+    /**
+     * 由直方图快照生成
+     */
+    public static LatencyStats from(LatencyHistogram.Snapshot snapshot) {
+        LatencyStats stats = new LatencyStats();
+        stats.count = snapshot.getCount();
+        stats.meanMicros = snapshot.getMean();
+        stats.p50Micros = snapshot.getPercentile(50);
+        stats.p95Micros = snapshot.getPercentile(95);
+        stats.p99Micros = snapshot.getPercentile(99);
+        stats.p999Micros = snapshot.getPercentile(99.9);
+        stats.maxMicros = snapshot.getMax();
+        return stats;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public void setMeanMicros(double meanMicros) {
+        this.meanMicros = meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public void setP50Micros(long p50Micros) {
+        this.p50Micros = p50Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public void setP95Micros(long p95Micros) {
+        this.p95Micros = p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public void setP99Micros(long p99Micros) {
+        this.p99Micros = p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public void setP999Micros(long p999Micros) {
+        this.p999Micros = p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public void setMaxMicros(long maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+}
@@ -0,0 +1,142 @@
+package com.albumstore.api.model;
+
+public class PoolStats {
+    private String name;
+    private int active;
+    private int idle;
+    private int maxTotal;
+    private int maxIdle;
+    private int minIdle;
+    private long maxWaitMillis;
+    private int waiters;
+    private int maxWaiters;
+    private long rejected;
+    private long failures;
+    private boolean adaptive;
+    private LatencyStats waitTime;
+    private LatencyStats borrowTime;
+    private LatencyStats queryTime;
+
+    public PoolStats() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public void setWaiters(int waiters) {
+        this.waiters = waiters;
+    }
+
+    public int getMaxWaiters() {
+        return maxWaiters;
+    }
+
+    public void setMaxWaiters(int maxWaiters) {
+        this.maxWaiters = maxWaiters;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public LatencyStats getWaitTime() {
+        return waitTime;
+    }
+
+    public void setWaitTime(LatencyStats waitTime) {
+        this.waitTime = waitTime;
+    }
+
+    public LatencyStats getBorrowTime() {
+        return borrowTime;
+    }
+
+    public void setBorrowTime(LatencyStats borrowTime) {
+        this.borrowTime = borrowTime;
+    }
+
+    public LatencyStats getQueryTime() {
+        return queryTime;
+    }
+
+    public void setQueryTime(LatencyStats queryTime) {
+        this.queryTime = queryTime;
+    }
+}
@@ -0,0 +1,38 @@
+package com.albumstore.api.model;
+
+public class RankedAlbum {
+    private String albumID;
+    private long count;
+
+    public RankedAlbum() {
+    }
+
+    public RankedAlbum(String albumID, long count) {
+        this.albumID = albumID;
+        this.count = count;
+    }
+
+    public String getAlbumID() {
+        return albumID;
+    }
+
+    public void setAlbumID(String albumID) {
+        this.albumID = albumID;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "RankedAlbum{" +
+                "albumID='" + albumID + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -1,6 +1,8 @@
 package com.albumstore.api.producer;
 
 import com.albumstore.api.config.AppConfig;
+import com.albumstore.api.metrics.LatencyHistogram;
+import com.albumstore.api.metrics.MetricsRegistry;
 import com.google.gson.Gson;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
@@ -19,10 +21,22 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class ProducerClient {
@@ -30,11 +44,32 @@ public class ProducerClient {
     private static final int CONNECTION_TIMEOUT = 3000; // 3秒
     private static final int SOCKET_TIMEOUT = 5000; // 5秒
     private static final int MAX_RETRIES = 3;
+    private static final long CLOSE_DRAIN_TIMEOUT_MS = 10000; // 关闭时等待未确认消息的最长时间
+
+    // 每次HTTP调用的耗时，首次发送和重试分开记录，每次调用只记录一次（不包含退避等待）
+    private static final LatencyHistogram SEND_LATENCY = MetricsRegistry.producerLatency("send");
+    private static final LatencyHistogram RETRY_LATENCY = MetricsRegistry.producerLatency("retry");
+    private static final LatencyHistogram SEND_BATCH_LATENCY = MetricsRegistry.producerLatency("send_batch");
+    private static final LatencyHistogram RETRY_BATCH_LATENCY = MetricsRegistry.producerLatency("retry_batch");
 
     private final String producerUrl;
     private final CloseableHttpAsyncClient httpClient;
     private final Gson gson;
 
+    // 批量发送配置：消息先进入无锁队列，攒满batchSize条或等待lingerMs后合并为一个JSON数组发送
+    private final boolean batchEnabled;
+    private final int batchSize;
+    private final long batchLingerMs;
+    private final String producerBatchUrl;
+    private final ConcurrentLinkedQueue<PendingMessage> batchQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger batchQueueSize = new AtomicInteger(0);
+    private final AtomicBoolean batchFlushScheduled = new AtomicBoolean(false);
+    private ScheduledExecutorService batchExecutor;
+    private final AtomicLong batchCounter = new AtomicLong(0);
+
+    // 已发出但尚未确认的消息（含重试中的），关闭HTTP客户端前等待它们完成
+    private final Set<CompletableFuture<Boolean>> inFlight = ConcurrentHashMap.newKeySet();
+
     // 添加计数器以减少日志量
     private final AtomicLong sentCounter = new AtomicLong(0);
     private final AtomicLong successCounter = new AtomicLong(0);
@@ -48,6 +83,11 @@ public class ProducerClient {
         AppConfig config = AppConfig.getInstance();
         this.producerUrl = String.format("http://%s:%d/publish",
                 config.getProducerHost(), config.getProducerPort());
+        this.producerBatchUrl = String.format("http://%s:%d%s",
+                config.getProducerHost(), config.getProducerPort(), config.getProducerBatchPath());
+        this.batchEnabled = config.isProducerBatchEnabled();
+        this.batchSize = config.getProducerBatchSize();
+        this.batchLingerMs = config.getProducerBatchLingerMs();
 
         // 创建I/O反应器
         ConnectingIOReactor ioReactor;
@@ -82,10 +122,34 @@ public class ProducerClient {
 
         LOGGER.info("Async ProducerClient initialized with URL: {}", producerUrl);
 
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("albumstore_producer_messages_total", "Review messages handed to the producer",
+                "result", "sent", sentCounter::get);
+        registry.counter("albumstore_producer_messages_total", "Review messages handed to the producer",
+                "result", "success", successCounter::get);
+        registry.counter("albumstore_producer_messages_total", "Review messages handed to the producer",
+                "result", "failure", failureCounter::get);
+
+        if (batchEnabled) {
+            startBatchFlusher();
+            LOGGER.info("Batch publishing enabled: url={}, batchSize={}, lingerMs={}",
+                    producerBatchUrl, batchSize, batchLingerMs);
+        }
+
         // 启动统计日志线程
         startStatsLogger();
     }
 
+    private void startBatchFlusher() {
+        batchExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "producer-batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 定时发送，保证每条消息最多等待lingerMs
+        batchExecutor.scheduleAtFixedRate(this::flushBatches, batchLingerMs, batchLingerMs, TimeUnit.MILLISECONDS);
+    }
+
     private void startStatsLogger() {
         Thread statsThread = new Thread(() -> {
             try {
@@ -112,19 +176,27 @@ public class ProducerClient {
 
     /**
      * 异步发送评论消息到Producer服务
-     * 返回CompletableFuture，允许调用者决定是否等待结果
+     * 返回CompletableFuture，允许调用者决定是否等待结果；批量模式下在所在批次被确认后完成
      */
     public CompletableFuture<Boolean> sendReviewMessageAsync(String reviewType, String albumId) {
-        Map<String, String> message = new HashMap<>();
-        message.put("reviewType", reviewType);
-        message.put("albumId", albumId);
+        CompletableFuture<Boolean> resultFuture = batchEnabled
+                ? enqueueBatchMessage(reviewType, albumId)
+                : sendSingleMessageAsync(reviewType, albumId, 0, new CompletableFuture<>());
+        inFlight.add(resultFuture);
+        resultFuture.whenComplete((result, e) -> inFlight.remove(resultFuture));
+        return resultFuture;
+    }
 
-        String jsonMessage = gson.toJson(message);
-        CompletableFuture<Boolean> resultFuture = new CompletableFuture<>();
+    /**
+     * 单条消息直接发送，attempt为0表示首次发送；重试时沿用同一个resultFuture
+     */
+    private CompletableFuture<Boolean> sendSingleMessageAsync(String reviewType, String albumId, int attempt,
+                                                              CompletableFuture<Boolean> resultFuture) {
+        String jsonMessage = toMessageJson(gson, reviewType, albumId);
 
-        // 记录发送计数
-        long currentCount = sentCounter.incrementAndGet();
-        boolean shouldLog = currentCount % LOG_INTERVAL == 0;
+        // 记录发送计数；与批量模式一致，按消息计数，重试不再计入
+        long currentCount = attempt == 0 ? sentCounter.incrementAndGet() : sentCounter.get();
+        boolean shouldLog = attempt == 0 && currentCount % LOG_INTERVAL == 0;
 
         if (shouldLog) {
             LOGGER.debug("Sending message #{}: {} for album: {}",
@@ -137,9 +209,12 @@ public class ProducerClient {
             httpPost.setEntity(new StringEntity(jsonMessage));
 
             // 异步执行HTTP请求
+            LatencyHistogram latency = attempt == 0 ? SEND_LATENCY : RETRY_LATENCY;
+            long start = System.nanoTime();
             httpClient.execute(httpPost, new FutureCallback<HttpResponse>() {
                 @Override
                 public void completed(HttpResponse response) {
+                    latency.recordSince(start);
                     try {
                         int statusCode = response.getStatusLine().getStatusCode();
                         if (statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_CREATED) {
@@ -149,25 +224,24 @@ public class ProducerClient {
                             String responseBody = EntityUtils.toString(response.getEntity());
                             LOGGER.warn("Failed to send message. Status: {}, Response: {}",
                                     statusCode, responseBody);
-                            failureCounter.incrementAndGet();
-                            retryOrFail(reviewType, albumId, 1, resultFuture, null);
+                            retryOrFail(reviewType, albumId, attempt + 1, resultFuture, null);
                         }
                     } catch (Exception e) {
                         LOGGER.error("Error processing response", e);
-                        failureCounter.incrementAndGet();
-                        retryOrFail(reviewType, albumId, 1, resultFuture, e);
+                        retryOrFail(reviewType, albumId, attempt + 1, resultFuture, e);
                     }
                 }
 
                 @Override
                 public void failed(Exception e) {
+                    latency.recordSince(start);
                     LOGGER.error("Request failed", e);
-                    failureCounter.incrementAndGet();
-                    retryOrFail(reviewType, albumId, 1, resultFuture, e);
+                    retryOrFail(reviewType, albumId, attempt + 1, resultFuture, e);
                 }
 
                 @Override
                 public void cancelled() {
+                    latency.recordSince(start);
                     LOGGER.warn("Request cancelled");
                     failureCounter.incrementAndGet();
                     resultFuture.complete(false);
@@ -183,7 +257,7 @@ public class ProducerClient {
     }
 
     /**
-     * 重试逻辑
+     * 重试逻辑；重试用尽时才把这条消息计为失败，与批量模式按消息计数的口径一致
      */
     private void retryOrFail(String reviewType, String albumId, int attempt,
                              CompletableFuture<Boolean> resultFuture, Exception exception) {
@@ -195,15 +269,11 @@ public class ProducerClient {
             CompletableFuture.delayedExecutor(backoffTime, java.util.concurrent.TimeUnit.MILLISECONDS)
                     .execute(() -> {
                         LOGGER.debug("Retrying #{} for {} album: {}", attempt + 1, reviewType, albumId);
-                        sendReviewMessageAsync(reviewType, albumId)
-                                .thenAccept(resultFuture::complete)
-                                .exceptionally(e -> {
-                                    resultFuture.completeExceptionally(e);
-                                    return null;
-                                });
+                        sendSingleMessageAsync(reviewType, albumId, attempt, resultFuture);
                     });
         } else {
             // 达到最大重试次数
+            failureCounter.incrementAndGet();
             if (exception != null) {
                 resultFuture.completeExceptionally(exception);
             } else {
@@ -212,6 +282,156 @@ public class ProducerClient {
         }
     }
 
+    /**
+     * 把消息放入批量队列；攒满一批时立即触发发送
+     */
+    private CompletableFuture<Boolean> enqueueBatchMessage(String reviewType, String albumId) {
+        CompletableFuture<Boolean> resultFuture = new CompletableFuture<>();
+        sentCounter.incrementAndGet();
+        batchQueue.offer(new PendingMessage(reviewType, albumId, resultFuture));
+
+        if (batchQueueSize.incrementAndGet() >= batchSize && batchFlushScheduled.compareAndSet(false, true)) {
+            try {
+                batchExecutor.execute(this::flushBatches);
+            } catch (Exception e) {
+                // 执行器已关闭，由close()负责发送剩余消息
+                batchFlushScheduled.set(false);
+            }
+        }
+        return resultFuture;
+    }
+
+    /**
+     * 把队列中的消息按batchSize分批发送，直到队列为空
+     */
+    private void flushBatches() {
+        batchFlushScheduled.set(false);
+        try {
+            while (true) {
+                List<PendingMessage> batch = new ArrayList<>(batchSize);
+                PendingMessage message;
+                while (batch.size() < batchSize && (message = batchQueue.poll()) != null) {
+                    batch.add(message);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                batchQueueSize.addAndGet(-batch.size());
+                sendBatchAsync(batch, 0);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error flushing producer batch", e);
+        }
+    }
+
+    /**
+     * 以JSON数组形式发送一批消息，批次确认后完成其中所有消息的Future
+     */
+    private void sendBatchAsync(List<PendingMessage> batch, int attempt) {
+        long batchId = batchCounter.incrementAndGet();
+        if (batchId % LOG_INTERVAL == 0) {
+            LOGGER.debug("Sending batch #{} with {} messages", batchId, batch.size());
+        }
+
+        try {
+            HttpPost httpPost = new HttpPost(producerBatchUrl);
+            httpPost.setHeader("Content-Type", "application/json");
+            httpPost.setEntity(new StringEntity(toBatchJson(gson, batch)));
+
+            LatencyHistogram latency = attempt == 0 ? SEND_BATCH_LATENCY : RETRY_BATCH_LATENCY;
+            long start = System.nanoTime();
+            httpClient.execute(httpPost, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    latency.recordSince(start);
+                    try {
+                        int statusCode = response.getStatusLine().getStatusCode();
+                        if (statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_CREATED) {
+                            successCounter.addAndGet(batch.size());
+                            for (PendingMessage pending : batch) {
+                                pending.future.complete(true);
+                            }
+                        } else {
+                            String responseBody = EntityUtils.toString(response.getEntity());
+                            LOGGER.warn("Failed to send batch. Status: {}, Response: {}", statusCode, responseBody);
+                            retryBatchOrFail(batch, attempt + 1, null);
+                        }
+                    } catch (Exception e) {
+                        LOGGER.error("Error processing batch response", e);
+                        retryBatchOrFail(batch, attempt + 1, e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    latency.recordSince(start);
+                    LOGGER.error("Batch request failed", e);
+                    retryBatchOrFail(batch, attempt + 1, e);
+                }
+
+                @Override
+                public void cancelled() {
+                    latency.recordSince(start);
+                    LOGGER.warn("Batch request cancelled");
+                    failureCounter.addAndGet(batch.size());
+                    for (PendingMessage pending : batch) {
+                        pending.future.complete(false);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.error("Error sending batch", e);
+            failureCounter.addAndGet(batch.size());
+            for (PendingMessage pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 批次重试逻辑，与单条消息使用相同的指数退避
+     */
+    private void retryBatchOrFail(List<PendingMessage> batch, int attempt, Exception exception) {
+        if (attempt < MAX_RETRIES) {
+            long backoffTime = (long) (Math.pow(2, attempt) * 100);
+            CompletableFuture.delayedExecutor(backoffTime, TimeUnit.MILLISECONDS)
+                    .execute(() -> sendBatchAsync(batch, attempt));
+        } else {
+            failureCounter.addAndGet(batch.size());
+            for (PendingMessage pending : batch) {
+                if (exception != null) {
+                    pending.future.completeExceptionally(exception);
+                } else {
+                    pending.future.complete(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单条消息的JSON：{"reviewType": ..., "albumId": ...}
+     */
+    static String toMessageJson(Gson gson, String reviewType, String albumId) {
+        Map<String, String> message = new HashMap<>();
+        message.put("reviewType", reviewType);
+        message.put("albumId", albumId);
+        return gson.toJson(message);
+    }
+
+    /**
+     * 批量消息的JSON数组
+     */
+    static String toBatchJson(Gson gson, List<PendingMessage> batch) {
+        List<Map<String, String>> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            Map<String, String> message = new HashMap<>();
+            message.put("reviewType", pending.reviewType);
+            message.put("albumId", pending.albumId);
+            messages.add(message);
+        }
+        return gson.toJson(messages);
+    }
+
     /**
      * 同步发送方法（兼容旧API）
      */
@@ -240,6 +460,19 @@ public class ProducerClient {
                 }
             }
 
+            if (batchExecutor != null) {
+                batchExecutor.shutdown();
+                try {
+                    batchExecutor.awaitTermination(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // 发送队列中剩余的消息
+                flushBatches();
+            }
+
+            awaitInFlight();
+
             if (httpClient != null) {
                 httpClient.close();
                 LOGGER.info("ProducerClient closed");
@@ -248,4 +481,41 @@ public class ProducerClient {
             LOGGER.error("Error closing ProducerClient", e);
         }
     }
+
+    /**
+     * 等待已发出的消息（包括退避后的重试）完成，最多等待CLOSE_DRAIN_TIMEOUT_MS，超时后剩余消息随客户端关闭而失败
+     */
+    private void awaitInFlight() {
+        int outstanding = inFlight.size();
+        if (outstanding == 0) {
+            return;
+        }
+        LOGGER.info("Waiting for {} in-flight producer messages", outstanding);
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+                    .get(CLOSE_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("{} producer messages still in flight after {} ms, closing anyway",
+                    inFlight.size(), CLOSE_DRAIN_TIMEOUT_MS);
+        } catch (ExecutionException e) {
+            // 单条消息的失败已经在发送回调中记录
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 等待批量发送的消息
+     */
+    static final class PendingMessage {
+        final String reviewType;
+        final String albumId;
+        final CompletableFuture<Boolean> future;
+
+        PendingMessage(String reviewType, String albumId, CompletableFuture<Boolean> future) {
+            this.reviewType = reviewType;
+            this.albumId = albumId;
+            this.future = future;
+        }
+    }
 }
\ No newline at end of file
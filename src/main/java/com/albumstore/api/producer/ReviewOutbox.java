@@ -0,0 +1,324 @@
+package com.albumstore.api.producer;
+
+import com.albumstore.api.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 评论消息的本地持久化发件箱（内存映射的追加写文件）
+ * 请求线程只需把评论追加到当前段文件即可返回，后台线程按顺序把记录发送给Producer，
+ * 确认后推进段头部的已发送偏移，整段发送完毕后删除段文件。进程重启后从段头部偏移继续发送。
+ * 投递语义为至少一次：重启前已发送但未记录偏移的记录会被重发。
+ *
+ * 段文件格式：[long 已发送偏移][long 保留] 之后是若干条 [int 长度][UTF-8 "reviewType\nalbumId"]，长度为0表示数据结束。
+ */
+public class ReviewOutbox {
+    private static final Logger LOGGER = LogManager.getLogger(ReviewOutbox.class);
+    private static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long RETRY_BACKOFF_MS = 1000;
+    private static final long SEND_TIMEOUT_MS = 30000;
+
+    private final ProducerClient producerClient;
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final int drainBatchSize;
+
+    // 未删除的段，按ID从小到大排列；最后一个是当前写入段
+    private final ConcurrentLinkedDeque<Segment> segments = new ConcurrentLinkedDeque<>();
+    private volatile Segment activeSegment;
+
+    private volatile boolean running = true;
+    private Thread drainerThread;
+
+    private final AtomicLong appendedCounter = new AtomicLong(0);
+    private final AtomicLong drainedCounter = new AtomicLong(0);
+
+    public ReviewOutbox(ProducerClient producerClient) {
+        AppConfig config = AppConfig.getInstance();
+        this.producerClient = producerClient;
+        this.directory = Paths.get(config.getReviewOutboxDir());
+        this.segmentBytes = config.getReviewOutboxSegmentBytes();
+        this.fsync = config.isReviewOutboxFsync();
+        this.drainBatchSize = config.getReviewOutboxDrainBatchSize();
+    }
+
+    /**
+     * 恢复已有段文件并启动后台发送线程
+     */
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        recoverSegments();
+        if (activeSegment == null) {
+            long nextId = segments.isEmpty() ? 1 : segments.peekLast().id + 1;
+            activeSegment = openSegment(nextId);
+            segments.addLast(activeSegment);
+        }
+
+        drainerThread = new Thread(this::drainLoop, "review-outbox-drainer");
+        drainerThread.setDaemon(true);
+        drainerThread.start();
+
+        LOGGER.info("Review outbox started: dir={}, segments={}, segmentBytes={}, fsync={}",
+                directory, segments.size(), segmentBytes, fsync);
+    }
+
+    /**
+     * 追加一条评论；返回时记录已写入内存映射文件，进程崩溃后仍可恢复
+     */
+    public synchronized void append(String reviewType, String albumId) throws IOException {
+        byte[] payload = (reviewType + "\n" + albumId).getBytes(StandardCharsets.UTF_8);
+        int recordSize = 4 + payload.length;
+        if (HEADER_SIZE + recordSize + 4 > segmentBytes) {
+            throw new IOException("Review record too large for outbox segment: " + recordSize);
+        }
+
+        // 当前段剩余空间不足（需保留4字节结束标记）时切换到新段
+        if (activeSegment.writePosition + recordSize + 4 > segmentBytes) {
+            activeSegment.sealed = true;
+            activeSegment = openSegment(activeSegment.id + 1);
+            segments.addLast(activeSegment);
+        }
+
+        Segment segment = activeSegment;
+        int position = segment.writePosition;
+        // 先写内容再写长度，长度非0即表示记录完整
+        segment.buffer.position(position + 4);
+        segment.buffer.put(payload);
+        segment.buffer.putInt(position, payload.length);
+        if (fsync) {
+            segment.buffer.force();
+        }
+        segment.writePosition = position + recordSize;
+        segment.committedPosition = segment.writePosition;
+
+        appendedCounter.incrementAndGet();
+        LockSupport.unpark(drainerThread);
+    }
+
+    public long getAppendedCount() {
+        return appendedCounter.get();
+    }
+
+    public long getDrainedCount() {
+        return drainedCounter.get();
+    }
+
+    /**
+     * 停止后台发送线程；未发送的记录保留在磁盘上，下次启动继续发送
+     */
+    public void close() {
+        running = false;
+        if (drainerThread != null) {
+            LockSupport.unpark(drainerThread);
+            try {
+                drainerThread.join(SEND_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            closeQuietly(segment);
+        }
+        LOGGER.info("Review outbox closed - appended: {}, drained: {}", appendedCounter.get(), drainedCounter.get());
+    }
+
+    /**
+     * 后台发送循环：从最旧的段开始，每次发送一批记录，全部确认后推进已发送偏移
+     */
+    private void drainLoop() {
+        while (running) {
+            try {
+                Segment segment = segments.peekFirst();
+                if (segment == null) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                int committed = segment.committedPosition;
+                if (segment.readPosition >= committed) {
+                    // 读到sealed之后重新读取committedPosition：封段前的最后一次追加可能发生在上面读取committed之后，
+                    // sealed的写入晚于该段所有committedPosition的写入，此时读到的才是最终值
+                    if (segment.sealed && segment != activeSegment
+                            && segment.readPosition >= segment.committedPosition) {
+                        // 段已写满且全部发送，删除段文件
+                        segments.pollFirst();
+                        deleteSegment(segment);
+                    } else {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    continue;
+                }
+
+                if (!drainBatch(segment, committed)) {
+                    Thread.sleep(RETRY_BACKOFF_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error draining review outbox", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS));
+            }
+        }
+    }
+
+    private boolean drainBatch(Segment segment, int committed) throws Exception {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(drainBatchSize);
+        int position = segment.readPosition;
+        // 追加线程会修改buffer的position，读取使用独立position的副本，按记录整块复制
+        ByteBuffer reader = segment.buffer.duplicate();
+        while (position < committed && futures.size() < drainBatchSize) {
+            int length = reader.getInt(position);
+            byte[] payload = new byte[length];
+            reader.position(position + 4);
+            reader.get(payload, 0, length);
+            String record = new String(payload, StandardCharsets.UTF_8);
+            int separator = record.indexOf('\n');
+            futures.add(producerClient.sendReviewMessageAsync(
+                    record.substring(0, separator), record.substring(separator + 1)));
+            position += 4 + length;
+        }
+
+        boolean allSent = true;
+        for (CompletableFuture<Boolean> future : futures) {
+            try {
+                allSent &= Boolean.TRUE.equals(future.get(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            } catch (Exception e) {
+                allSent = false;
+            }
+        }
+
+        if (!allSent) {
+            // 整批重发，可能产生重复消息
+            LOGGER.warn("Failed to drain {} outbox records from segment {}, will retry", futures.size(), segment.id);
+            return false;
+        }
+
+        segment.readPosition = position;
+        segment.buffer.putLong(0, position);
+        drainedCounter.addAndGet(futures.size());
+        return true;
+    }
+
+    /**
+     * 启动时扫描目录中的段文件，恢复每个段的已发送偏移和写入位置
+     */
+    private void recoverSegments() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("Ignoring unexpected file in outbox directory: {}", path);
+                }
+            }
+        }
+        ids.sort(null);
+
+        long pending = 0;
+        for (long id : ids) {
+            Segment segment = openSegment(id);
+            long drained = segment.buffer.getLong(0);
+            segment.readPosition = (int) Math.max(HEADER_SIZE, Math.min(drained, segmentBytes));
+
+            // 扫描到第一个长度为0或越界的记录为止
+            int position = HEADER_SIZE;
+            while (position + 4 <= segmentBytes) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + 4 + length > segmentBytes) {
+                    break;
+                }
+                if (position >= segment.readPosition) {
+                    pending++;
+                }
+                position += 4 + length;
+            }
+            segment.writePosition = position;
+            segment.committedPosition = position;
+            segment.sealed = true;
+            segments.addLast(segment);
+        }
+
+        // 最后一个段继续作为写入段
+        if (!segments.isEmpty()) {
+            activeSegment = segments.peekLast();
+            activeSegment.sealed = false;
+        }
+
+        if (pending > 0) {
+            LOGGER.info("Recovered {} undelivered reviews from {} outbox segments", pending, ids.size());
+        }
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new Segment(id, path, channel, buffer);
+    }
+
+    private void deleteSegment(Segment segment) {
+        closeQuietly(segment);
+        try {
+            Files.deleteIfExists(segment.path);
+            LOGGER.debug("Deleted drained outbox segment {}", segment.id);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete drained outbox segment {}", segment.path, e);
+        }
+    }
+
+    private void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close outbox segment {}", segment.path, e);
+        }
+    }
+
+    /**
+     * 单个段文件；writePosition只由追加线程访问，committedPosition对发送线程可见
+     */
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition = HEADER_SIZE;
+        volatile int committedPosition = HEADER_SIZE;
+        volatile int readPosition = HEADER_SIZE;
+        volatile boolean sealed = false;
+
+        Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
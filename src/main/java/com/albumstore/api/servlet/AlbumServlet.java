@@ -1,31 +1,63 @@
 package com.albumstore.api.servlet;
 
+import com.albumstore.api.cache.AlbumSearchIndex;
+import com.albumstore.api.cache.ReviewCounterStore;
+import com.albumstore.api.cache.ReviewRanking;
+import com.albumstore.api.config.AppConfig;
 import com.albumstore.api.db.AlbumDAO;
+import com.albumstore.api.db.DBConnectionPool;
 import com.albumstore.api.db.ReviewDAO;
+import com.albumstore.api.metrics.LatencyHistogram;
+import com.albumstore.api.metrics.MetricsRegistry;
+import com.albumstore.api.model.AlbumBatchResult;
 import com.albumstore.api.model.AlbumInfo;
-import com.albumstore.api.model.ErrorMsg;
-import com.albumstore.api.model.ImageMetaData;
+import com.albumstore.api.model.AlbumListing;
+import com.albumstore.api.model.BulkAlbumRecord;
 import com.albumstore.api.producer.ProducerClient;
+import com.albumstore.api.producer.ReviewOutbox;
+import com.albumstore.api.storage.ImageDescriptor;
+import com.albumstore.api.storage.StagedImage;
+import com.albumstore.api.util.ByteRange;
 import com.albumstore.api.util.Constants;
+import com.albumstore.api.util.ETagUtil;
+import com.albumstore.api.util.JsonBodyWriter;
+import com.albumstore.api.util.PageCursor;
 import com.google.gson.Gson;
-import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.fileupload.disk.DiskFileItemFactory;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 @WebServlet(name = "AlbumServlet", urlPatterns = {"/albums", "/albums/*", "/review/*", "/admin/*"}, asyncSupported = true)
@@ -38,11 +70,45 @@ public class AlbumServlet extends HttpServlet {
     private final AtomicLong albumCreationCounter = new AtomicLong(0);
     private final AtomicLong reviewCounter = new AtomicLong(0);
     private static final int LOG_INTERVAL = 100; // 每100个请求记录一次详细日志
+    private static final long EXECUTOR_SHUTDOWN_TIMEOUT_MS = 10000;
+
+    // 各路由的请求耗时
+    private static final LatencyHistogram BULK_IMPORT_LATENCY = MetricsRegistry.routeLatency("POST /albums/bulk");
+    private static final LatencyHistogram NEW_ALBUM_LATENCY = MetricsRegistry.routeLatency("POST /albums");
+    private static final LatencyHistogram REVIEW_STATS_BULK_LATENCY =
+            MetricsRegistry.routeLatency("POST /review/stats");
+    private static final LatencyHistogram REVIEW_LATENCY = MetricsRegistry.routeLatency("POST /review");
+    private static final LatencyHistogram RESET_LATENCY = MetricsRegistry.routeLatency("POST /admin/reset");
+    private static final LatencyHistogram GET_IMAGE_LATENCY = MetricsRegistry.routeLatency("GET /albums/{id}/image");
+    private static final LatencyHistogram SEARCH_LATENCY = MetricsRegistry.routeLatency("GET /albums/search");
+    private static final LatencyHistogram GET_ALBUM_LATENCY = MetricsRegistry.routeLatency("GET /albums/{id}");
+    private static final LatencyHistogram GET_ALBUMS_BATCH_LATENCY = MetricsRegistry.routeLatency("GET /albums?ids");
+    private static final LatencyHistogram LIST_ALBUMS_LATENCY = MetricsRegistry.routeLatency("GET /albums");
+    private static final LatencyHistogram TOP_ALBUMS_LATENCY = MetricsRegistry.routeLatency("GET /review/top");
+    private static final LatencyHistogram GET_REVIEW_STATS_LATENCY = MetricsRegistry.routeLatency("GET /review/{id}");
 
     private AlbumDAO albumDAO;
     private ReviewDAO reviewDAO;
     private ProducerClient producerClient;
+    private ReviewCounterStore reviewCounterStore;
+    private ReviewOutbox reviewOutbox;
+    private ReviewRanking reviewRanking;
+    private int albumBatchMaxIds;
+    private int albumBulkBatchSize;
+    private int reviewRankingMaxN;
+    private int albumListDefaultLimit;
+    private int albumListMaxLimit;
+    private AlbumSearchIndex albumSearchIndex;
+    private int albumSearchDefaultLimit;
+    private int albumSearchMaxLimit;
     private Gson gson;
+    private Router router;
+    // 虚拟线程模式下执行阻塞DAO调用的执行器，容器线程模式下为null
+    private DaoExecutor daoExecutor;
+    // 异步读取流水线，未启用read.async时为null
+    private AsyncReadPipeline readPipeline;
+    private AsyncReadPipeline.RouteLimits albumReadLimits;
+    private AsyncReadPipeline.RouteLimits reviewReadLimits;
 
     @Override
     public void init() throws ServletException {
@@ -50,13 +116,140 @@ public class AlbumServlet extends HttpServlet {
         albumDAO = new AlbumDAO();
         reviewDAO = new ReviewDAO();
         producerClient = new ProducerClient();
+        reviewCounterStore = ReviewCounterStore.getInstance();
+        reviewRanking = ReviewRanking.getInstance();
+        albumBatchMaxIds = AppConfig.getInstance().getAlbumBatchMaxIds();
+        albumBulkBatchSize = AppConfig.getInstance().getAlbumBulkBatchSize();
+        reviewRankingMaxN = AppConfig.getInstance().getReviewRankingMaxN();
+        albumListDefaultLimit = AppConfig.getInstance().getAlbumListDefaultLimit();
+        albumListMaxLimit = AppConfig.getInstance().getAlbumListMaxLimit();
+        albumSearchIndex = AlbumSearchIndex.getInstance();
+        albumSearchDefaultLimit = AppConfig.getInstance().getAlbumSearchDefaultLimit();
+        albumSearchMaxLimit = AppConfig.getInstance().getAlbumSearchMaxLimit();
+        if (AppConfig.getInstance().isReviewOutboxEnabled()) {
+            reviewOutbox = new ReviewOutbox(producerClient);
+            try {
+                reviewOutbox.start();
+            } catch (IOException e) {
+                throw new ServletException("Failed to start review outbox", e);
+            }
+        }
         gson = new Gson();
+        if (AppConfig.getInstance().isReadAsyncEnabled()) {
+            AppConfig config = AppConfig.getInstance();
+            readPipeline = new AsyncReadPipeline(config.getReadAsyncThreads());
+            albumReadLimits = readPipeline.route("GET /albums/{id}",
+                    config.getReadAsyncTimeoutMs("album"), config.getReadAsyncMaxPending("album"));
+            reviewReadLimits = readPipeline.route("GET /review/{id}",
+                    config.getReadAsyncTimeoutMs("review"), config.getReadAsyncMaxPending("review"));
+        }
+        router = buildRouter();
+        daoExecutor = createDaoExecutor();
         LOGGER.info("AlbumServlet initialized");
     }
 
+    /**
+     * 按servlet.executionMode创建执行器；虚拟线程不可用时退回容器线程模式
+     * JDBC驱动和连接池在synchronized中阻塞时虚拟线程会占住载体线程，默认并发数不超过载体线程数，
+     * 否则所有载体线程都可能被数据库调用占满，其他虚拟线程（包括要归还连接的）无法运行
+     */
+    private DaoExecutor createDaoExecutor() throws ServletException {
+        String mode = AppConfig.getInstance().getServletExecutionMode();
+        if ("container".equals(mode)) {
+            return null;
+        }
+        if (!"virtual".equals(mode)) {
+            throw new ServletException("Unknown servlet.executionMode: " + mode);
+        }
+        int carriers = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        int maxConcurrency = AppConfig.getInstance().getServletVirtualMaxConcurrency();
+        if (maxConcurrency <= 0) {
+            maxConcurrency = Math.min(DBConnectionPool.getMaxConnections(), carriers);
+        } else if (maxConcurrency > carriers) {
+            LOGGER.warn("servlet.virtual.maxConcurrency={} exceeds {} carrier threads; database calls that pin "
+                    + "their carrier can stall all virtual threads", maxConcurrency, carriers);
+        }
+        DaoExecutor executor = DaoExecutor.virtualThreads("album-vt", maxConcurrency);
+        if (executor == null) {
+            LOGGER.warn("Falling back to container execution mode");
+        }
+        return executor;
+    }
+
+    /**
+     * 注册所有路由；同一位置上字面量路由在参数路由之前
+     */
+    private Router buildRouter() {
+        return new Router()
+                // 批量导入专辑 - POST /albums/bulk
+                .post(Constants.ALBUMS_BULK_PATH, BULK_IMPORT_LATENCY,
+                        (request, response, match, logDetails) -> handleBulkImport(request, response))
+                // 创建新专辑 - POST /albums
+                .post(Constants.ALBUMS_PATH, NEW_ALBUM_LATENCY,
+                        (request, response, match, logDetails) -> handleNewAlbum(request, response, logDetails))
+                // 批量获取评论统计 - POST /review/stats
+                .post(Constants.REVIEW_STATS_PATH, REVIEW_STATS_BULK_LATENCY,
+                        (request, response, match, logDetails) -> handleGetReviewStatsBulk(request, response))
+                // 喜欢/不喜欢专辑 - POST /review/{likeornot}/{albumID}
+                .post(Constants.REVIEW_PATH + "/{type}/{albumId}", REVIEW_LATENCY,
+                        (request, response, match, logDetails) ->
+                                handleReview(match.get("type"), match.get("albumId"), request, response, logDetails))
+                // 自己管理AsyncContext：虚拟线程模式下专辑存在性检查交给DaoExecutor
+                .inline()
+                // 数据库重置 - POST /admin/reset
+                .post(Constants.ADMIN_RESET_PATH, RESET_LATENCY,
+                        (request, response, match, logDetails) -> handleDatabaseReset(response))
+                // 专辑搜索 - GET /albums/search?q=&limit=
+                .get(Constants.ALBUMS_PATH + Constants.ALBUMS_SEARCH_PATH_INFO, SEARCH_LATENCY,
+                        (request, response, match, logDetails) -> handleSearchAlbums(request, response))
+                // 获取专辑图片 - GET /albums/{albumID}/image
+                .get(Constants.ALBUMS_PATH + "/{albumId}" + Constants.IMAGE_PATH_SUFFIX, GET_IMAGE_LATENCY,
+                        (request, response, match, logDetails) ->
+                                handleGetAlbumImage(match.get("albumId"), request, response))
+                // 获取专辑信息 - GET /albums/{albumID}
+                .get(Constants.ALBUMS_PATH + "/{albumId}", GET_ALBUM_LATENCY,
+                        (request, response, match, logDetails) ->
+                                handleGetAlbum(match.get("albumId"), request, response))
+                .inline(readPipeline != null)
+                // 批量获取专辑信息 - GET /albums?ids=id1,id2,...
+                .get(Constants.ALBUMS_PATH, "ids", GET_ALBUMS_BATCH_LATENCY,
+                        (request, response, match, logDetails) ->
+                                handleGetAlbumsBatch(request.getParameter("ids"), response))
+                // 分页列出专辑 - GET /albums?limit=&cursor=
+                .get(Constants.ALBUMS_PATH, LIST_ALBUMS_LATENCY,
+                        (request, response, match, logDetails) -> handleListAlbums(request, response))
+                // 评论排行榜 - GET /review/top?n=&type=
+                .get(Constants.REVIEW_PATH + Constants.REVIEW_TOP_PATH_INFO, TOP_ALBUMS_LATENCY,
+                        (request, response, match, logDetails) -> handleGetTopAlbums(request, response))
+                .inline()
+                // 获取专辑评论统计 - GET /review/{albumID}
+                .get(Constants.REVIEW_PATH + "/{albumId}", GET_REVIEW_STATS_LATENCY,
+                        (request, response, match, logDetails) ->
+                                handleGetReviewStats(match.get("albumId"), request, response))
+                .inline(readPipeline != null)
+                // 连接池统计 - GET /admin/pool
+                .get(Constants.ADMIN_POOL_PATH, null,
+                        (request, response, match, logDetails) -> handleGetPoolStats(response))
+                .inline()
+                // Prometheus指标 - GET /admin/metrics
+                .get(Constants.ADMIN_METRICS_PATH, null,
+                        (request, response, match, logDetails) -> handleGetMetrics(response))
+                .inline();
+    }
+
     @Override
     public void destroy() {
         LOGGER.info("Destroying AlbumServlet");
+        if (daoExecutor != null) {
+            daoExecutor.shutdown(EXECUTOR_SHUTDOWN_TIMEOUT_MS);
+        }
+        if (readPipeline != null) {
+            readPipeline.shutdown(EXECUTOR_SHUTDOWN_TIMEOUT_MS);
+        }
+        if (reviewOutbox != null) {
+            reviewOutbox.close();
+        }
         producerClient.close();
         LOGGER.info("AlbumServlet destroyed");
     }
@@ -74,26 +267,84 @@ public class AlbumServlet extends HttpServlet {
             LOGGER.debug("Handling POST request #{}: {}", requestId, uri);
         }
 
+        dispatch(request, response, uri, requestId, shouldLogDetails);
+    }
+
+    /**
+     * 虚拟线程模式：开始异步处理后立即释放容器线程，handler在DaoExecutor上运行，结束时记录耗时并完成AsyncContext
+     */
+    private void dispatchToExecutor(HttpServletRequest request, HttpServletResponse response,
+                                    Router.RouteMatch match, String uri, long requestId, boolean shouldLogDetails,
+                                    long start) throws IOException {
+        AsyncContext asyncContext = request.startAsync();
+        // 任务一定会完成AsyncContext，不使用容器超时，避免超时后任务仍在写已回收的响应
+        asyncContext.setTimeout(0);
+        Router.Route route = match.getRoute();
+        try {
+            daoExecutor.execute(() -> {
+                try {
+                    route.getHandler().handle(request, response, match, shouldLogDetails);
+                } catch (Exception e) {
+                    LOGGER.error("Error processing {} request #{}: {}", request.getMethod(), requestId, uri, e);
+                    sendErrorQuietly(response, Constants.STATUS_INTERNAL_SERVER_ERROR,
+                            "Internal server error: " + e.getMessage());
+                } finally {
+                    if (route.getLatency() != null) {
+                        route.getLatency().recordSince(start);
+                    }
+                    asyncContext.complete();
+                }
+            }, () -> {
+                sendErrorQuietly(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Server is shutting down");
+                asyncContext.complete();
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Request #{} rejected, executor {} is shut down", requestId, daoExecutor.getName());
+            sendError(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Server is shutting down");
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * 在执行器线程上发送错误响应，发送失败（如客户端已断开）只记录日志
+     */
+    private void sendErrorQuietly(HttpServletResponse response, int statusCode, String message) {
         try {
-            // 处理创建新专辑请求 - /albums
-            if (uri.endsWith(Constants.ALBUMS_PATH)) {
-                handleNewAlbum(request, response, shouldLogDetails);
+            sendError(response, statusCode, message);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to send error response: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录路由耗时；异步处理的请求在AsyncContext完成时记录
+     */
+    private void recordRouteLatency(HttpServletRequest request, LatencyHistogram routeLatency, long start) {
+        if (routeLatency == null) {
+            return;
+        }
+        if (!request.isAsyncStarted()) {
+            routeLatency.recordSince(start);
+            return;
+        }
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                routeLatency.recordSince(start);
             }
-            // 处理喜欢/不喜欢专辑请求 - /review/{likeornot}/{albumID}
-            else if (uri.contains(Constants.REVIEW_PATH)) {
-                handleReview(request, response, shouldLogDetails);
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
             }
-            // 处理数据库重置请求 - /admin/reset
-            else if (uri.endsWith(Constants.ADMIN_RESET_PATH)) {
-                handleDatabaseReset(response);
-            } else {
-                LOGGER.warn("Invalid request path: {}", uri);
-                sendError(response, Constants.STATUS_BAD_REQUEST, "Invalid path: " + uri);
+
+            @Override
+            public void onError(AsyncEvent event) {
             }
-        } catch (Exception e) {
-            LOGGER.error("Error processing POST request #{}: {}", requestId, uri, e);
-            sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Internal server error: " + e.getMessage());
-        }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
     }
 
     /**
@@ -106,11 +357,7 @@ public class AlbumServlet extends HttpServlet {
 
         if (success) {
             // 发送成功响应
-            response.setContentType(Constants.CONTENT_TYPE_JSON);
-            response.setStatus(Constants.STATUS_OK);
-            PrintWriter out = response.getWriter();
-            out.print(gson.toJson(new ErrorMsg("Reset database successful")));
-            out.flush();
+            sendJson(response, Constants.STATUS_OK, JsonBodyWriter.preEncoded("Reset database successful"));
         } else {
             sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Reset database failed");
         }
@@ -119,7 +366,6 @@ public class AlbumServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        String pathInfo = request.getPathInfo();
         String uri = request.getRequestURI();
         long requestId = requestCounter.incrementAndGet();
         boolean shouldLogDetails = requestId % LOG_INTERVAL == 0;
@@ -130,56 +376,417 @@ public class AlbumServlet extends HttpServlet {
             LOGGER.debug("Handling GET request #{}: {}", requestId, uri);
         }
 
+        dispatch(request, response, uri, requestId, shouldLogDetails);
+    }
+
+    /**
+     * 按路由表分发请求并记录路由耗时；没有匹配的路由时返回400
+     */
+    private void dispatch(HttpServletRequest request, HttpServletResponse response, String uri, long requestId,
+                          boolean shouldLogDetails) throws IOException {
+        long start = System.nanoTime();
+        LatencyHistogram routeLatency = null;
         try {
-            // 处理获取专辑信息请求 - /albums/{albumID}
-            if (uri.startsWith(Constants.ALBUMS_PATH) && pathInfo != null && !pathInfo.equals("/")) {
-                String albumId = pathInfo.substring(1);
-                handleGetAlbum(albumId, response);
-            }
-            // 处理获取专辑评论统计请求 - /review/{albumID}
-            else if (uri.startsWith(Constants.REVIEW_PATH) && pathInfo != null && !pathInfo.equals("/")) {
-                String albumId = pathInfo.substring(1);
-                handleGetReviewStats(albumId, response);
-            } else {
+            Router.RouteMatch match = router.match(request);
+            if (match == null) {
                 LOGGER.warn("Invalid request path: {}", uri);
-                sendError(response, Constants.STATUS_BAD_REQUEST, "Invalid path or album ID is required");
+                sendError(response, Constants.STATUS_BAD_REQUEST, "POST".equals(request.getMethod())
+                        ? "Invalid path: " + uri : "Invalid path or album ID is required");
+                return;
+            }
+            if (daoExecutor != null && !match.getRoute().isInline()) {
+                dispatchToExecutor(request, response, match, uri, requestId, shouldLogDetails, start);
+                return;
             }
+            routeLatency = match.getRoute().getLatency();
+            match.getRoute().getHandler().handle(request, response, match, shouldLogDetails);
         } catch (Exception e) {
-            LOGGER.error("Error processing GET request #{}: {}", requestId, uri, e);
+            LOGGER.error("Error processing {} request #{}: {}", request.getMethod(), requestId, uri, e);
             sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Internal server error: " + e.getMessage());
+        } finally {
+            recordRouteLatency(request, routeLatency, start);
         }
     }
 
+    /**
+     * 处理连接池统计请求，返回 {"writer": 统计, "reader": 统计}
+     */
+    private void handleGetPoolStats(HttpServletResponse response) throws IOException {
+        response.setContentType(Constants.CONTENT_TYPE_JSON);
+        response.setStatus(Constants.STATUS_OK);
+        PrintWriter out = response.getWriter();
+        out.print(gson.toJson(DBConnectionPool.getPoolStats()));
+        out.flush();
+    }
+
+    /**
+     * 处理Prometheus指标请求，以文本格式输出所有耗时直方图和计数器
+     */
+    private void handleGetMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType(Constants.CONTENT_TYPE_PROMETHEUS);
+        response.setStatus(Constants.STATUS_OK);
+        MetricsRegistry.getInstance().writePrometheus(response.getWriter());
+    }
+
     /**
      * 处理获取专辑评论统计请求
      */
-    private void handleGetReviewStats(String albumId, HttpServletResponse response)
+    private void handleGetReviewStats(String albumId, HttpServletRequest request, HttpServletResponse response)
             throws IOException {
         LOGGER.debug("Getting review stats for album: {}", albumId);
 
-        // 验证专辑是否存在
-        if (!albumDAO.albumExists(albumId)) {
+        // 异步读取模式：查询在数据库线程池上执行，容器线程立即返回
+        if (readPipeline != null) {
+            readPipeline.execute(request, response, reviewReadLimits, () -> loadReviewStats(albumId),
+                    reviewStats -> renderReviewStats(albumId, reviewStats, request, response));
+            return;
+        }
+
+        JsonBodyWriter body = renderReviewStats(albumId, loadReviewStats(albumId), request, response);
+        if (body != null) {
+            sendJson(response, response.getStatus(), body);
+        }
+    }
+
+    /**
+     * 读取评论统计，专辑不存在时返回null
+     */
+    private Map<String, Integer> loadReviewStats(String albumId) {
+        // 验证专辑是否存在（聚合计数模式下内存中已有计数的专辑一定存在）
+        boolean knownInMemory = reviewCounterStore.isEnabled() && reviewCounterStore.contains(albumId);
+        if (!knownInMemory && !albumDAO.albumExists(albumId)) {
+            return null;
+        }
+
+        // 获取评论统计（聚合计数模式下直接读内存）
+        if (!reviewCounterStore.isEnabled()) {
+            return reviewDAO.getReviewStats(albumId);
+        }
+        Map<String, Integer> stats = reviewCounterStore.getReviewStats(albumId);
+        if (stats == null) {
+            throw new IllegalStateException("Failed to load review counters for album " + albumId);
+        }
+        return stats;
+    }
+
+    /**
+     * 设置评论统计响应的状态码和响应头，返回响应体；304时返回null
+     */
+    private JsonBodyWriter renderReviewStats(String albumId, Map<String, Integer> reviewStats,
+                                             HttpServletRequest request, HttpServletResponse response) {
+        if (reviewStats == null) {
             LOGGER.warn("Album not found for review stats: {}", albumId);
-            sendError(response, Constants.STATUS_NOT_FOUND, "Album not found");
+            response.setStatus(Constants.STATUS_NOT_FOUND);
+            return JsonBodyWriter.get().errorMsg("Album not found");
+        }
+
+        // 计数未变化时返回304
+        String etag = ETagUtil.forReviewStats(reviewStats.get("like"), reviewStats.get("dislike"));
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache");
+        if (ETagUtil.matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(Constants.STATUS_NOT_MODIFIED);
+            LOGGER.debug("Review stats not modified for album: {}", albumId);
+            return null;
+        }
+
+        response.setStatus(Constants.STATUS_OK);
+        LOGGER.debug("Review stats sent for album: {}", albumId);
+        return JsonBodyWriter.get().reviewStats(reviewStats.get("like"), reviewStats.get("dislike"));
+    }
+
+    /**
+     * 处理批量获取评论统计请求
+     * 请求体为专辑ID的JSON数组，响应 {"stats": {id: {"likes", "dislikes"}}, "notFound": [id...]} 以流的方式写出
+     */
+    private void handleGetReviewStatsBulk(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String[] requestedIds;
+        try {
+            requestedIds = gson.fromJson(request.getReader(), String[].class);
+        } catch (JsonParseException e) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "Request body must be a JSON array of album IDs");
+            return;
+        }
+
+        Set<String> albumIds = new LinkedHashSet<>();
+        if (requestedIds != null) {
+            for (String albumId : requestedIds) {
+                if (albumId != null && !albumId.trim().isEmpty()) {
+                    albumIds.add(albumId.trim());
+                }
+            }
+        }
+        if (albumIds.isEmpty()) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "At least one album ID is required");
+            return;
+        }
+        if (albumIds.size() > albumBatchMaxIds) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "Too many album IDs, maximum is " + albumBatchMaxIds);
             return;
         }
 
-        // 获取评论统计
-        Map<String, Integer> reviewStats = reviewDAO.getReviewStats(albumId);
+        // 聚合计数模式下内存中已有的专辑直接读内存，其余一次查询
+        Map<String, Map<String, Integer>> stats = new HashMap<>();
+        List<String> toQuery = new ArrayList<>();
+        for (String albumId : albumIds) {
+            Map<String, Integer> albumStats = reviewCounterStore.isEnabled() && reviewCounterStore.contains(albumId)
+                    ? reviewCounterStore.getReviewStats(albumId) : null;
+            if (albumStats != null) {
+                stats.put(albumId, albumStats);
+            } else {
+                toQuery.add(albumId);
+            }
+        }
 
-        // 创建响应对象
-        Map<String, String> responseMap = new HashMap<>();
-        responseMap.put("likes", String.valueOf(reviewStats.get("like")));
-        responseMap.put("dislikes", String.valueOf(reviewStats.get("dislike")));
+        if (!toQuery.isEmpty()) {
+            if (!ReviewDAO.isReviewStatsAvailable()) {
+                sendError(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Review stats are not available");
+                return;
+            }
+            Map<String, Map<String, Integer>> queried = reviewDAO.getReviewStatsBulk(toQuery);
+            if (queried == null) {
+                sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Failed to get review stats");
+                return;
+            }
+            // 批量查询可能读从库，结果不作为内存计数的基数；不在内存中的专辑没有未刷新的增量
+            stats.putAll(queried);
+        }
 
-        // 发送响应
         response.setContentType(Constants.CONTENT_TYPE_JSON);
         response.setStatus(Constants.STATUS_OK);
+        JsonWriter writer = new JsonWriter(response.getWriter());
+        writer.beginObject();
+        writer.name("stats").beginObject();
+        for (String albumId : albumIds) {
+            Map<String, Integer> albumStats = stats.get(albumId);
+            if (albumStats != null) {
+                writer.name(albumId).beginObject()
+                        .name("likes").value(String.valueOf(albumStats.get("like")))
+                        .name("dislikes").value(String.valueOf(albumStats.get("dislike")))
+                        .endObject();
+            }
+        }
+        writer.endObject();
+        writer.name("notFound").beginArray();
+        for (String albumId : albumIds) {
+            if (!stats.containsKey(albumId)) {
+                writer.value(albumId);
+            }
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+
+        LOGGER.debug("Bulk review stats: {} requested, {} found", albumIds.size(), stats.size());
+    }
+
+    /**
+     * 处理批量导入专辑请求
+     * 请求体为NDJSON，每行一个专辑：{"artist","title","year","image": Base64图片} 或用 "imageHash" 引用已存储的图片。
+     * 每album.bulk.batchSize条在一个事务中批量插入，每批提交后立即以NDJSON写出结果：
+     * {"line": 行号, "albumID": ID} 或 {"line": 行号, "error": 原因}，最后一行为汇总。
+     */
+    private void handleBulkImport(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        LOGGER.info("Handling bulk album import");
+
+        response.setContentType(Constants.CONTENT_TYPE_NDJSON);
+        response.setStatus(Constants.STATUS_OK);
         PrintWriter out = response.getWriter();
-        out.print(gson.toJson(responseMap));
+        BufferedReader reader = request.getReader();
+
+        List<AlbumInfo> albumInfos = new ArrayList<>(albumBulkBatchSize);
+        List<StagedImage> images = new ArrayList<>(albumBulkBatchSize);
+        List<Integer> lineNumbers = new ArrayList<>(albumBulkBatchSize);
+        int[] totals = new int[2]; // {导入成功数, 失败数}
+        int lineNumber = 0;
+        StringBuilder line = new StringBuilder();
+
+        try {
+            while (readBulkLine(reader, line)) {
+                lineNumber++;
+                if (line.length() > Constants.MAX_BULK_LINE_LENGTH) {
+                    writeBulkResult(out, lineNumber, null,
+                            "Line exceeds " + Constants.MAX_BULK_LINE_LENGTH + " characters");
+                    totals[1]++;
+                    continue;
+                }
+                String record = line.toString();
+                if (record.trim().isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    BulkAlbumRecord album = gson.fromJson(record, BulkAlbumRecord.class);
+                    StagedImage image = stageBulkImage(album);
+                    albumInfos.add(new AlbumInfo(album.getArtist(), album.getTitle(), album.getYear()));
+                    images.add(image);
+                    lineNumbers.add(lineNumber);
+                } catch (Exception e) {
+                    String message = e.getMessage();
+                    writeBulkResult(out, lineNumber, null,
+                            message != null ? message : "Invalid album record: " + e.getClass().getSimpleName());
+                    totals[1]++;
+                    continue;
+                }
+
+                if (albumInfos.size() >= albumBulkBatchSize) {
+                    flushBulkBatch(out, albumInfos, images, lineNumbers, totals);
+                }
+            }
+            flushBulkBatch(out, albumInfos, images, lineNumbers, totals);
+        } finally {
+            for (StagedImage image : images) {
+                image.close();
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("imported", totals[0]);
+        summary.put("failed", totals[1]);
+        out.println(gson.toJson(summary));
         out.flush();
 
-        LOGGER.debug("Review stats sent for album: {}", albumId);
+        LOGGER.info("Bulk album import finished: {} imported, {} failed", totals[0], totals[1]);
+    }
+
+    /**
+     * 读取一行（不含换行符）到line中，到达末尾时返回false。
+     * 超过MAX_BULK_LINE_LENGTH的部分不再保存，line长度为上限加一，调用方据此判定该行过长
+     */
+    private static boolean readBulkLine(BufferedReader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        boolean overflow = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                break;
+            }
+            if (overflow) {
+                continue;
+            }
+            if (line.length() == Constants.MAX_BULK_LINE_LENGTH) {
+                overflow = true;
+            }
+            line.append((char) c);
+        }
+        if (c == -1 && line.length() == 0) {
+            return false;
+        }
+        if (!overflow && line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return true;
+    }
+
+    /**
+     * 校验必填字段并暂存图片；Base64图片先按编码长度检查解码后的大小，再边解码边写入临时文件
+     */
+    private StagedImage stageBulkImage(BulkAlbumRecord record) throws IOException {
+        if (record == null || record.getArtist() == null || record.getTitle() == null || record.getYear() == null) {
+            throw new IllegalArgumentException("Missing required fields");
+        }
+        if (record.getImage() != null) {
+            String encoded = record.getImage();
+            int padding = encoded.endsWith("==") ? 2 : encoded.endsWith("=") ? 1 : 0;
+            long decodedSize = (long) encoded.length() / 4 * 3 - padding;
+            if (decodedSize > Constants.MAX_FILE_SIZE) {
+                throw new IllegalArgumentException("Image exceeds " + Constants.MAX_FILE_SIZE + " bytes");
+            }
+            return albumDAO.stageImage(Base64.getDecoder().wrap(
+                    new ByteArrayInputStream(encoded.getBytes(StandardCharsets.ISO_8859_1))));
+        }
+        if (record.getImageHash() != null) {
+            StagedImage image = albumDAO.stageStoredImage(record.getImageHash());
+            if (image == null) {
+                throw new IllegalArgumentException("Unknown image hash: " + record.getImageHash());
+            }
+            return image;
+        }
+        throw new IllegalArgumentException("Missing image");
+    }
+
+    /**
+     * 批量插入已解析的专辑并写出每行结果
+     */
+    private void flushBulkBatch(PrintWriter out, List<AlbumInfo> albumInfos, List<StagedImage> images,
+                                List<Integer> lineNumbers, int[] totals) throws IOException {
+        if (albumInfos.isEmpty()) {
+            return;
+        }
+
+        List<String> albumIds = albumDAO.saveAlbumsBatch(albumInfos, images);
+        for (int i = 0; i < lineNumbers.size(); i++) {
+            if (albumIds != null) {
+                writeBulkResult(out, lineNumbers.get(i), albumIds.get(i), null);
+            } else {
+                writeBulkResult(out, lineNumbers.get(i), null, "Failed to save album batch");
+            }
+        }
+        if (albumIds != null) {
+            totals[0] += albumIds.size();
+        } else {
+            totals[1] += lineNumbers.size();
+        }
+        out.flush();
+
+        for (StagedImage image : images) {
+            image.close();
+        }
+        albumInfos.clear();
+        images.clear();
+        lineNumbers.clear();
+    }
+
+    private void writeBulkResult(PrintWriter out, int lineNumber, String albumId, String error) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("line", lineNumber);
+        if (albumId != null) {
+            result.put("albumID", albumId);
+        } else {
+            result.put("error", error);
+        }
+        out.println(gson.toJson(result));
+    }
+
+    /**
+     * 处理评论排行榜请求，返回按计数降序排列的 [{"albumID", "count"}]
+     */
+    private void handleGetTopAlbums(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!reviewRanking.isEnabled()) {
+            sendError(response, Constants.STATUS_NOT_FOUND, "Review ranking is disabled");
+            return;
+        }
+
+        String type = request.getParameter("type");
+        if (type == null) {
+            type = Constants.REVIEW_LIKE;
+        }
+        if (!Constants.REVIEW_LIKE.equals(type) && !Constants.REVIEW_DISLIKE.equals(type)) {
+            sendError(response, Constants.STATUS_BAD_REQUEST,
+                    "Review type must be '" + Constants.REVIEW_LIKE + "' or '" + Constants.REVIEW_DISLIKE + "'");
+            return;
+        }
+
+        int n = 10;
+        String nParam = request.getParameter("n");
+        if (nParam != null) {
+            try {
+                n = Integer.parseInt(nParam);
+            } catch (NumberFormatException e) {
+                n = -1;
+            }
+        }
+        if (n <= 0 || n > reviewRankingMaxN) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "n must be between 1 and " + reviewRankingMaxN);
+            return;
+        }
+
+        response.setContentType(Constants.CONTENT_TYPE_JSON);
+        response.setStatus(Constants.STATUS_OK);
+        PrintWriter out = response.getWriter();
+        out.print(gson.toJson(reviewRanking.top(type, n)));
+        out.flush();
     }
 
     /**
@@ -196,56 +803,50 @@ public class AlbumServlet extends HttpServlet {
             return;
         }
 
+        // 以流的方式逐个读取multipart各部分，图片直接写入目标位置，不在堆上保留整张图片
+        String artist = null;
+        String title = null;
+        String year = null;
+        StagedImage image = null;
+
         try {
-            // 创建文件上传处理器，设置临时文件阈值
-            DiskFileItemFactory factory = new DiskFileItemFactory();
-            factory.setSizeThreshold(4 * 1024 * 1024); // 4MB阈值，大文件写入磁盘
-            ServletFileUpload upload = new ServletFileUpload(factory);
+            ServletFileUpload upload = new ServletFileUpload();
             upload.setFileSizeMax(Constants.MAX_FILE_SIZE);
 
-            // 解析请求
-            List<FileItem> items = upload.parseRequest(request);
-            if (shouldLogDetails) {
-                LOGGER.info("Album creation #{}: Request parsed with {} items", albumCreationId, items.size());
-            }
-
-            // 处理上传的文件和表单字段
-            byte[] imageData = null;
-            String artist = null;
-            String title = null;
-            String year = null;
-
-            for (FileItem item : items) {
-                if (!item.isFormField()) {
-                    // 处理图片文件
-                    if ("image".equals(item.getFieldName())) {
-                        imageData = item.get();
-                        if (shouldLogDetails) {
-                            LOGGER.info("Album creation #{}: Image received, size: {} bytes",
-                                    albumCreationId, imageData.length);
+            FileItemIterator iterator = upload.getItemIterator(request);
+            while (iterator.hasNext()) {
+                FileItemStream item = iterator.next();
+                try (InputStream stream = item.openStream()) {
+                    if (!item.isFormField()) {
+                        // 处理图片文件
+                        if ("image".equals(item.getFieldName()) && image == null) {
+                            image = albumDAO.stageImage(stream);
+                            if (shouldLogDetails) {
+                                LOGGER.info("Album creation #{}: Image received, size: {} bytes",
+                                        albumCreationId, image.getSize());
+                            }
+                        }
+                    } else {
+                        // 处理表单字段
+                        String fieldValue = Streams.asString(stream, "UTF-8");
+
+                        switch (item.getFieldName()) {
+                            case "artist":
+                                artist = fieldValue;
+                                break;
+                            case "title":
+                                title = fieldValue;
+                                break;
+                            case "year":
+                                year = fieldValue;
+                                break;
                         }
-                    }
-                } else {
-                    // 处理表单字段
-                    String fieldName = item.getFieldName();
-                    String fieldValue = item.getString("UTF-8");
-
-                    switch (fieldName) {
-                        case "artist":
-                            artist = fieldValue;
-                            break;
-                        case "title":
-                            title = fieldValue;
-                            break;
-                        case "year":
-                            year = fieldValue;
-                            break;
                     }
                 }
             }
 
             // 验证必填字段
-            if (imageData == null || artist == null || title == null || year == null) {
+            if (image == null || artist == null || title == null || year == null) {
                 LOGGER.warn("Album creation #{}: Missing required fields", albumCreationId);
                 sendError(response, Constants.STATUS_BAD_REQUEST, "Missing required fields");
                 return;
@@ -253,7 +854,7 @@ public class AlbumServlet extends HttpServlet {
 
             // 保存专辑信息
             AlbumInfo albumInfo = new AlbumInfo(artist, title, year);
-            String albumId = albumDAO.saveAlbum(albumInfo, imageData);
+            String albumId = albumDAO.saveAlbum(albumInfo, image);
 
             if (albumId == null) {
                 LOGGER.error("Album creation #{}: Failed to save album: {}",
@@ -262,68 +863,324 @@ public class AlbumServlet extends HttpServlet {
                 return;
             }
 
-            // 创建响应数据
-            ImageMetaData metaData = new ImageMetaData(albumId, String.valueOf(imageData.length));
-
             // 发送响应
-            response.setContentType(Constants.CONTENT_TYPE_JSON);
-            response.setStatus(Constants.STATUS_OK);
-            PrintWriter out = response.getWriter();
-            out.print(gson.toJson(metaData));
-            out.flush();
+            sendJson(response, Constants.STATUS_OK,
+                    JsonBodyWriter.get().imageMetaData(albumId, String.valueOf(image.getSize())));
 
             LOGGER.debug("Album creation #{}: Album created successfully with ID: {}",
                     albumCreationId, albumId);
         } catch (Exception e) {
             LOGGER.error("Album creation #{}: Error creating new album", albumCreationId, e);
             sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, e.getMessage());
+        } finally {
+            // 删除临时文件
+            if (image != null) {
+                image.close();
+            }
         }
     }
 
     /**
      * 处理获取专辑信息请求
      */
-    private void handleGetAlbum(String albumId, HttpServletResponse response)
+    private void handleGetAlbum(String albumId, HttpServletRequest request, HttpServletResponse response)
             throws IOException {
         LOGGER.debug("Getting album info: {}", albumId);
 
-        // 获取专辑信息
-        AlbumInfo albumInfo = albumDAO.getAlbumById(albumId);
+        // 异步读取模式：查询在数据库线程池上执行，容器线程立即返回
+        if (readPipeline != null) {
+            readPipeline.execute(request, response, albumReadLimits, () -> albumDAO.getAlbumById(albumId),
+                    albumInfo -> renderAlbum(albumId, albumInfo, request, response));
+            return;
+        }
 
+        // 获取专辑信息（缓存命中时不访问数据库）
+        JsonBodyWriter body = renderAlbum(albumId, albumDAO.getAlbumById(albumId), request, response);
+        if (body != null) {
+            sendJson(response, response.getStatus(), body);
+        }
+    }
+
+    /**
+     * 设置专辑信息响应的状态码和响应头，返回响应体；304时返回null
+     */
+    private JsonBodyWriter renderAlbum(String albumId, AlbumInfo albumInfo, HttpServletRequest request,
+                                       HttpServletResponse response) {
         if (albumInfo == null) {
             LOGGER.warn("Album not found: {}", albumId);
-            sendError(response, Constants.STATUS_NOT_FOUND, "Album not found");
+            response.setStatus(Constants.STATUS_NOT_FOUND);
+            return JsonBodyWriter.get().errorMsg("Album not found");
+        }
+
+        // 专辑内容未变化时返回304
+        String etag = ETagUtil.forAlbum(albumInfo);
+        response.setHeader("ETag", etag);
+        if (ETagUtil.matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(Constants.STATUS_NOT_MODIFIED);
+            LOGGER.debug("Album info not modified: {}", albumId);
+            return null;
+        }
+
+        response.setStatus(Constants.STATUS_OK);
+        LOGGER.debug("Album info sent: {}", albumId);
+        return JsonBodyWriter.get().albumInfo(albumInfo);
+    }
+
+    /**
+     * 处理批量获取专辑信息请求，返回 {"albums": {id: 专辑信息}, "notFound": [id...]}
+     */
+    private void handleGetAlbumsBatch(String idsParam, HttpServletResponse response) throws IOException {
+        // 去重并保持请求中的顺序
+        Set<String> albumIds = new LinkedHashSet<>();
+        for (String albumId : idsParam.split(",")) {
+            String trimmed = albumId.trim();
+            if (!trimmed.isEmpty()) {
+                albumIds.add(trimmed);
+            }
+        }
+
+        if (albumIds.isEmpty()) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "At least one album ID is required");
+            return;
+        }
+        if (albumIds.size() > albumBatchMaxIds) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "Too many album IDs, maximum is " + albumBatchMaxIds);
             return;
         }
 
-        // 发送响应
+        Map<String, AlbumInfo> found = albumDAO.getAlbumsByIds(albumIds);
+        if (found == null) {
+            sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Failed to get albums");
+            return;
+        }
+
+        Map<String, AlbumInfo> albums = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (String albumId : albumIds) {
+            AlbumInfo albumInfo = found.get(albumId);
+            if (albumInfo != null) {
+                albums.put(albumId, albumInfo);
+            } else {
+                notFound.add(albumId);
+            }
+        }
+
         response.setContentType(Constants.CONTENT_TYPE_JSON);
         response.setStatus(Constants.STATUS_OK);
         PrintWriter out = response.getWriter();
-        out.print(gson.toJson(albumInfo));
+        out.print(gson.toJson(new AlbumBatchResult(albums, notFound)));
         out.flush();
 
-        LOGGER.debug("Album info sent: {}", albumId);
+        LOGGER.debug("Batch album lookup: {} requested, {} found", albumIds.size(), albums.size());
     }
 
     /**
-     * 处理喜欢/不喜欢专辑请求 - 使用异步方式
+     * 处理分页列出专辑请求（键集分页）
+     * 响应 {"albums": [{"albumID", "artist", "title", "year"}], "nextCursor": 游标或null}，以流的方式写出
+     */
+    private void handleListAlbums(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int limit = albumListDefaultLimit;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+        }
+        if (limit <= 0 || limit > albumListMaxLimit) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "limit must be between 1 and " + albumListMaxLimit);
+            return;
+        }
+
+        PageCursor cursor = null;
+        String cursorParam = request.getParameter("cursor");
+        if (cursorParam != null && !cursorParam.isEmpty()) {
+            cursor = PageCursor.decode(cursorParam);
+            if (cursor == null) {
+                sendError(response, Constants.STATUS_BAD_REQUEST, "Invalid cursor");
+                return;
+            }
+        }
+
+        // 多取一条用于判断是否还有下一页
+        List<AlbumListing> albums = cursor == null
+                ? albumDAO.listAlbums(null, null, limit + 1)
+                : albumDAO.listAlbums(cursor.getCreatedAt(), cursor.getAlbumId(), limit + 1);
+        if (albums == null) {
+            sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Failed to list albums");
+            return;
+        }
+
+        boolean hasMore = albums.size() > limit;
+        int count = Math.min(albums.size(), limit);
+
+        response.setContentType(Constants.CONTENT_TYPE_JSON);
+        response.setStatus(Constants.STATUS_OK);
+        JsonWriter writer = new JsonWriter(response.getWriter());
+        writer.beginObject();
+        writer.name("albums").beginArray();
+        for (int i = 0; i < count; i++) {
+            AlbumListing album = albums.get(i);
+            writer.beginObject()
+                    .name("albumID").value(album.getAlbumID())
+                    .name("artist").value(album.getAlbumInfo().getArtist())
+                    .name("title").value(album.getAlbumInfo().getTitle())
+                    .name("year").value(album.getAlbumInfo().getYear())
+                    .endObject();
+        }
+        writer.endArray();
+        writer.name("nextCursor");
+        if (hasMore) {
+            AlbumListing last = albums.get(count - 1);
+            writer.value(new PageCursor(last.getCreatedAt(), last.getAlbumID()).encode());
+        } else {
+            writer.nullValue();
+        }
+        writer.endObject();
+        writer.flush();
+
+        LOGGER.debug("Listed {} albums, hasMore={}", count, hasMore);
+    }
+
+    /**
+     * 处理专辑搜索请求，按artist/title分词匹配；查询词以*结尾时按前缀匹配，多个查询词为AND关系
+     * 响应 {"albums": [{"albumID", "artist", "title", "year"}]}
+     */
+    private void handleSearchAlbums(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!albumSearchIndex.isEnabled() || !albumSearchIndex.isReady()) {
+            sendError(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Album search is not available");
+            return;
+        }
+
+        String query = request.getParameter("q");
+        if (query == null || query.trim().isEmpty()) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "Query parameter q is required");
+            return;
+        }
+
+        int limit = albumSearchDefaultLimit;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+        }
+        if (limit <= 0 || limit > albumSearchMaxLimit) {
+            sendError(response, Constants.STATUS_BAD_REQUEST, "limit must be between 1 and " + albumSearchMaxLimit);
+            return;
+        }
+
+        List<String> albumIds = albumSearchIndex.search(query, limit);
+        Map<String, AlbumInfo> found = albumIds.isEmpty()
+                ? Collections.emptyMap()
+                : albumDAO.getAlbumsByIds(albumIds);
+        if (found == null) {
+            sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Failed to get albums");
+            return;
+        }
+
+        response.setContentType(Constants.CONTENT_TYPE_JSON);
+        response.setStatus(Constants.STATUS_OK);
+        JsonWriter writer = new JsonWriter(response.getWriter());
+        writer.beginObject();
+        writer.name("albums").beginArray();
+        for (String albumId : albumIds) {
+            AlbumInfo albumInfo = found.get(albumId);
+            if (albumInfo == null) {
+                continue;
+            }
+            writer.beginObject()
+                    .name("albumID").value(albumId)
+                    .name("artist").value(albumInfo.getArtist())
+                    .name("title").value(albumInfo.getTitle())
+                    .name("year").value(albumInfo.getYear())
+                    .endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+
+        LOGGER.debug("Album search '{}' matched {} albums", query, albumIds.size());
+    }
+
+    /**
+     * 处理获取专辑图片请求，支持ETag条件请求和单个Range范围请求
      */
-    private void handleReview(HttpServletRequest request, HttpServletResponse response, boolean shouldLogDetails)
+    private void handleGetAlbumImage(String albumId, HttpServletRequest request, HttpServletResponse response)
             throws IOException {
-        String uri = request.getRequestURI();
-        String[] pathParts = uri.split("/");
-        long reviewId = reviewCounter.incrementAndGet();
+        LOGGER.debug("Getting album image: {}", albumId);
+
+        ImageDescriptor image = albumDAO.getImageDescriptor(albumId);
+        if (image == null) {
+            LOGGER.warn("Album not found for image: {}", albumId);
+            sendError(response, Constants.STATUS_NOT_FOUND, "Album not found");
+            return;
+        }
+
+        // 图片写入后不会再改变，可以使用强ETag；没有哈希的早期专辑使用ID和大小
+        String etag = image.getHash() != null
+                ? "\"" + image.getHash() + "\""
+                : "\"" + albumId + "-" + image.getSize() + "\"";
+        long size = image.getSize();
+
+        response.setHeader("ETag", etag);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Cache-Control", "public, max-age=31536000, immutable");
+
+        if (ETagUtil.matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(Constants.STATUS_NOT_MODIFIED);
+            return;
+        }
+
+        // If-Range与当前ETag不一致时忽略Range，返回完整内容
+        ByteRange range = ByteRange.parse(request.getHeader("Range"), size);
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && ifRange != null && !ifRange.equals(etag)) {
+            range = null;
+        }
 
-        // 验证路径格式: /review/{likeornot}/{albumID}
-        if (pathParts.length < 4) {
-            LOGGER.warn("Review #{}: Invalid review path: {}", reviewId, uri);
-            sendError(response, Constants.STATUS_BAD_REQUEST, "Invalid path format");
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader("Content-Range", "bytes */" + size);
+            sendError(response, Constants.STATUS_RANGE_NOT_SATISFIABLE, "Requested range not satisfiable");
             return;
         }
 
-        String reviewType = pathParts[pathParts.length - 2];
-        String albumId = pathParts[pathParts.length - 1];
+        long offset = 0;
+        long length = size;
+        if (range != null) {
+            offset = range.getStart();
+            length = range.getLength();
+            response.setStatus(Constants.STATUS_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.toContentRange(size));
+        } else {
+            response.setStatus(Constants.STATUS_OK);
+        }
+        response.setContentType(Constants.CONTENT_TYPE_OCTET_STREAM);
+        response.setContentLengthLong(length);
+
+        if (!albumDAO.writeImage(albumId, image, offset, length, response.getOutputStream())) {
+            LOGGER.error("Failed to stream image for album: {}", albumId);
+            // 响应尚未发出时返回500，否则只能由容器中断连接
+            if (!response.isCommitted()) {
+                response.reset();
+                sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Failed to read album image");
+            }
+            return;
+        }
+
+        LOGGER.debug("Album image sent: {} ({} bytes)", albumId, length);
+    }
+
+    /**
+     * 处理喜欢/不喜欢专辑请求 - 使用异步方式
+     * 虚拟线程模式下先开始异步处理，专辑是否存在的查询和之后的处理都在DaoExecutor上执行，不阻塞容器线程
+     */
+    private void handleReview(String reviewType, String albumId, HttpServletRequest request,
+                              HttpServletResponse response, boolean shouldLogDetails) throws IOException {
+        long reviewId = reviewCounter.incrementAndGet();
 
         if (shouldLogDetails) {
             LOGGER.info("Review #{}: Processing review: {} for album: {}",
@@ -341,16 +1198,81 @@ public class AlbumServlet extends HttpServlet {
             return;
         }
 
+        if (daoExecutor != null) {
+            AsyncContext asyncContext = request.startAsync();
+            // 任务一定会完成AsyncContext，不使用容器超时
+            asyncContext.setTimeout(0);
+            try {
+                daoExecutor.execute(() -> {
+                    boolean pending = false;
+                    try {
+                        pending = processReview(reviewType, albumId, reviewId, request, response);
+                    } catch (Exception e) {
+                        LOGGER.error("Review #{}: Error processing review", reviewId, e);
+                        sendErrorQuietly(response, Constants.STATUS_INTERNAL_SERVER_ERROR,
+                                "Internal server error: " + e.getMessage());
+                    } finally {
+                        if (!pending) {
+                            asyncContext.complete();
+                        }
+                    }
+                }, () -> {
+                    sendErrorQuietly(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Server is shutting down");
+                    asyncContext.complete();
+                });
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("Review #{} rejected, executor {} is shut down", reviewId, daoExecutor.getName());
+                sendError(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Server is shutting down");
+                asyncContext.complete();
+            }
+            return;
+        }
+
+        processReview(reviewType, albumId, reviewId, request, response);
+    }
+
+    /**
+     * 验证专辑存在后记录评论；返回true表示响应将由Producer的回调完成AsyncContext，
+     * 此时如果请求还没有开始异步处理，会在这里开始
+     */
+    private boolean processReview(String reviewType, String albumId, long reviewId, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
         // 验证专辑是否存在
         if (!albumDAO.albumExists(albumId)) {
             LOGGER.warn("Review #{}: Album not found for review: {}", reviewId, albumId);
             sendError(response, Constants.STATUS_NOT_FOUND, "Album not found");
-            return;
+            return false;
         }
 
-        // 使用异步模式处理请求
-        final AsyncContext asyncContext = request.startAsync();
-        asyncContext.setTimeout(10000); // 10秒超时
+        // 聚合计数模式：只累加内存计数，由后台线程批量落库
+        if (reviewCounterStore.isEnabled()) {
+            if (!reviewCounterStore.recordReview(albumId, reviewType)) {
+                sendError(response, Constants.STATUS_INTERNAL_SERVER_ERROR, "Failed to process review");
+                return false;
+            }
+            reviewRanking.recordReview(albumId, reviewType);
+            response.setStatus(Constants.STATUS_CREATED);
+            LOGGER.debug("Review #{}: Counted in memory: {} for album: {}", reviewId, reviewType, albumId);
+            return false;
+        }
+
+        // 发件箱模式：追加到本地持久化日志后立即返回，由后台线程发送给Producer
+        if (reviewOutbox != null) {
+            reviewOutbox.append(reviewType, albumId);
+            reviewRanking.recordReview(albumId, reviewType);
+            response.setStatus(Constants.STATUS_CREATED);
+            LOGGER.debug("Review #{}: Appended to outbox: {} for album: {}", reviewId, reviewType, albumId);
+            return false;
+        }
+
+        // 使用异步模式处理请求；虚拟线程模式下已经开始异步处理
+        final AsyncContext asyncContext;
+        if (request.isAsyncStarted()) {
+            asyncContext = request.getAsyncContext();
+        } else {
+            asyncContext = request.startAsync();
+            asyncContext.setTimeout(10000); // 10秒超时
+        }
 
         // 异步发送评论消息到Producer服务
         final String finalReviewType = reviewType;
@@ -365,6 +1287,7 @@ public class AlbumServlet extends HttpServlet {
 
                 if (success) {
                     // 发送成功响应
+                    reviewRanking.recordReview(finalAlbumId, finalReviewType);
                     asyncResponse.setStatus(Constants.STATUS_CREATED);
                     LOGGER.debug("Review #{}: Message sent successfully: {} for album: {}",
                             finalReviewId, finalReviewType, finalAlbumId);
@@ -393,6 +1316,7 @@ public class AlbumServlet extends HttpServlet {
             }
             return null;
         });
+        return true;
     }
 
     /**
@@ -402,12 +1326,49 @@ public class AlbumServlet extends HttpServlet {
             throws IOException {
         LOGGER.debug("Sending error response: {} - {}", statusCode, message);
 
-        ErrorMsg errorMsg = new ErrorMsg(message);
-        response.setContentType(Constants.CONTENT_TYPE_JSON);
-        response.setStatus(statusCode);
+        byte[] preEncoded = JsonBodyWriter.preEncoded(message);
+        if (preEncoded != null) {
+            sendJson(response, statusCode, preEncoded);
+        } else {
+            sendJson(response, statusCode, JsonBodyWriter.get().errorMsg(message));
+        }
+    }
 
-        PrintWriter out = response.getWriter();
-        out.print(gson.toJson(errorMsg));
-        out.flush();
+    /**
+     * 把JsonBodyWriter中已编码的响应体直接写到输出流
+     */
+    private void sendJson(HttpServletResponse response, int statusCode, JsonBodyWriter body) throws IOException {
+        ServletOutputStream out = openJsonStream(response, statusCode);
+        if (out == null) {
+            response.getWriter().write(new String(body.toByteArray(), StandardCharsets.UTF_8));
+            return;
+        }
+        response.setContentLength(body.length());
+        body.writeTo(out);
+        response.flushBuffer();
+    }
+
+    private void sendJson(HttpServletResponse response, int statusCode, byte[] body) throws IOException {
+        ServletOutputStream out = openJsonStream(response, statusCode);
+        if (out == null) {
+            response.getWriter().write(new String(body, StandardCharsets.UTF_8));
+            return;
+        }
+        response.setContentLength(body.length);
+        out.write(body);
+        response.flushBuffer();
+    }
+
+    /**
+     * 设置JSON响应头并取得输出流；之前已经调用过getWriter（例如流式响应中途出错）时返回null，只能通过Writer输出
+     */
+    private ServletOutputStream openJsonStream(HttpServletResponse response, int statusCode) throws IOException {
+        response.setContentType(Constants.CONTENT_TYPE_JSON_UTF8);
+        response.setStatus(statusCode);
+        try {
+            return response.getOutputStream();
+        } catch (IllegalStateException e) {
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,306 @@
+package com.albumstore.api.servlet;
+
+import com.albumstore.api.metrics.MetricsRegistry;
+import com.albumstore.api.util.Constants;
+import com.albumstore.api.util.JsonBodyWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步读取流水线：容器线程只负责开始异步处理和提交查询，查询在固定大小的数据库线程池上执行，
+ * 结果通过WriteListener非阻塞写出。每个路由有自己的超时时间和待处理请求上限，
+ * 超过上限的请求直接返回503，不进入队列。
+ * 路由超时由单独的调度线程触发；容器的AsyncContext超时更长，只在响应迟迟写不完时兜底，
+ * 这样容器超时回调时不会出现结果正在写出、又必须在回调里结束请求的情况
+ */
+final class AsyncReadPipeline {
+    private static final Logger LOGGER = LogManager.getLogger(AsyncReadPipeline.class);
+    private static final long ASYNC_TIMEOUT_GRACE_MS = 5000; // 容器超时比路由超时多出的时间
+
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor timeoutScheduler;
+
+    AsyncReadPipeline(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 队列长度由各路由的待处理上限约束，这里不再限制
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "db-read-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timeoutScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "async-read-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 查询按时完成时取消的超时任务立即移出队列
+        timeoutScheduler.setRemoveOnCancelPolicy(true);
+        LOGGER.info("Async read pipeline started with {} threads", threads);
+    }
+
+    /**
+     * 注册一个路由的超时时间和待处理请求上限
+     */
+    RouteLimits route(String name, long timeoutMs, int maxPending) {
+        return new RouteLimits(name, timeoutMs, maxPending);
+    }
+
+    /**
+     * 开始异步处理并提交查询；查询结果交给renderer设置状态码和响应头并生成响应体（null表示没有响应体）
+     * 待处理请求达到上限时直接返回503
+     */
+    <T> void execute(HttpServletRequest request, HttpServletResponse response, RouteLimits limits,
+                     Callable<T> query, Renderer<T> renderer) throws IOException {
+        if (!limits.pending.tryAcquire()) {
+            limits.rejected.increment();
+            LOGGER.warn("Rejecting {} request, {} requests pending", limits.name, limits.maxPending);
+            respondBlocking(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Too many pending requests");
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(limits.timeoutMs + ASYNC_TIMEOUT_GRACE_MS);
+        AtomicBoolean responded = new AtomicBoolean(false);
+        asyncContext.addListener(new TimeoutListener(limits, responded));
+        ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+            if (responded.compareAndSet(false, true)) {
+                limits.timeouts.increment();
+                LOGGER.warn("{} request timed out after {} ms", limits.name, limits.timeoutMs);
+                response.setStatus(Constants.STATUS_SERVICE_UNAVAILABLE);
+                writeNonBlocking(asyncContext, response, JsonBodyWriter.preEncoded("Request timed out"));
+            }
+        }, limits.timeoutMs, TimeUnit.MILLISECONDS);
+
+        try {
+            executor.execute(() -> {
+                boolean owned = false; // 本线程已经抢到响应，之后出错也要由本线程完成AsyncContext
+                try {
+                    T result = query.call();
+                    if (!responded.compareAndSet(false, true)) {
+                        LOGGER.debug("{} request finished after timeout, result discarded", limits.name);
+                        return;
+                    }
+                    owned = true;
+                    JsonBodyWriter body = renderer.render(result);
+                    // 写出发生在容器的IO线程上，线程本地缓冲区要先复制出来
+                    writeNonBlocking(asyncContext, response, body == null ? null : body.toByteArray());
+                } catch (Exception e) {
+                    LOGGER.error("Error processing {} request", limits.name, e);
+                    if (owned || responded.compareAndSet(false, true)) {
+                        respondError(asyncContext, response, "Internal server error: " + e.getMessage());
+                    }
+                } finally {
+                    timeout.cancel(false);
+                    limits.pending.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            timeout.cancel(false);
+            limits.pending.release();
+            if (responded.compareAndSet(false, true)) {
+                respondBlocking(response, Constants.STATUS_SERVICE_UNAVAILABLE, "Server is shutting down");
+                asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * 停止数据库线程池，等待已提交的查询结束，然后停止超时调度线程
+     */
+    void shutdown(long timeoutMs) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Async read pipeline did not terminate in {} ms", timeoutMs);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        } finally {
+            timeoutScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 注册WriteListener，在输出流可写时写出响应体后完成AsyncContext；body为null时直接完成。
+     * 无法取得输出流（如客户端已断开）时也直接完成
+     */
+    private static void writeNonBlocking(AsyncContext asyncContext, HttpServletResponse response, byte[] body) {
+        if (body == null) {
+            completeQuietly(asyncContext);
+            return;
+        }
+        response.setContentType(Constants.CONTENT_TYPE_JSON_UTF8);
+        response.setContentLength(body.length);
+        ServletOutputStream out;
+        try {
+            out = response.getOutputStream();
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.warn("Failed to open async response stream: {}", e.getMessage());
+            completeQuietly(asyncContext);
+            return;
+        }
+        out.setWriteListener(new WriteListener() {
+            private boolean written = false;
+
+            @Override
+            public void onWritePossible() throws IOException {
+                // isReady返回false时容器会在可写后再次回调
+                while (out.isReady()) {
+                    if (written) {
+                        completeQuietly(asyncContext);
+                        return;
+                    }
+                    out.write(body);
+                    written = true;
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                LOGGER.warn("Failed to write async response: {}", t.getMessage());
+                completeQuietly(asyncContext);
+            }
+        });
+    }
+
+    /**
+     * 写出500错误响应；renderer可能已经设置了状态码和响应头，先清空。
+     * 响应已提交或已经注册过WriteListener时无法再写，只完成AsyncContext
+     */
+    private static void respondError(AsyncContext asyncContext, HttpServletResponse response, String message) {
+        if (response.isCommitted()) {
+            completeQuietly(asyncContext);
+            return;
+        }
+        try {
+            response.reset();
+            response.setStatus(Constants.STATUS_INTERNAL_SERVER_ERROR);
+            writeNonBlocking(asyncContext, response, JsonBodyWriter.get().errorMsg(message).toByteArray());
+        } catch (IllegalStateException e) {
+            LOGGER.warn("Failed to write async error response: {}", e.getMessage());
+            completeQuietly(asyncContext);
+        }
+    }
+
+    /**
+     * 完成AsyncContext；容器超时兜底时可能已经先完成了，此时忽略
+     */
+    private static void completeQuietly(AsyncContext asyncContext) {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            LOGGER.debug("Async context already completed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在容器线程上同步写出错误响应
+     */
+    private static void respondBlocking(HttpServletResponse response, int statusCode, String message)
+            throws IOException {
+        byte[] body = JsonBodyWriter.preEncoded(message);
+        response.setContentType(Constants.CONTENT_TYPE_JSON_UTF8);
+        response.setStatus(statusCode);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * 查询结果到响应的转换，在数据库线程上调用
+     */
+    @FunctionalInterface
+    interface Renderer<T> {
+        JsonBodyWriter render(T result);
+    }
+
+    /**
+     * 单个路由的超时时间和待处理请求上限
+     */
+    static final class RouteLimits {
+        private final String name;
+        private final long timeoutMs;
+        private final int maxPending;
+        private final Semaphore pending;
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        private RouteLimits(String name, long timeoutMs, int maxPending) {
+            this.name = name;
+            this.timeoutMs = timeoutMs;
+            this.maxPending = maxPending;
+            this.pending = new Semaphore(maxPending);
+            MetricsRegistry registry = MetricsRegistry.getInstance();
+            registry.gauge("albumstore_async_read_pending", "Async read requests queued or running",
+                    "route", name, () -> maxPending - pending.availablePermits());
+            registry.counter("albumstore_async_read_rejected_total", "Async read requests rejected as over limit",
+                    "route", name, rejected::sum);
+            registry.counter("albumstore_async_read_timeouts_total", "Async read requests that timed out",
+                    "route", name, timeouts::sum);
+        }
+    }
+
+    /**
+     * 容器超时的兜底：路由超时已经由调度线程处理，到这里说明响应在宽限时间内仍没有写完（或调度线程没能运行）。
+     * 还没有响应时返回503，无论如何都完成AsyncContext；之后其他线程的完成调用会被忽略
+     */
+    private static final class TimeoutListener implements AsyncListener {
+        private final RouteLimits limits;
+        private final AtomicBoolean responded;
+
+        TimeoutListener(RouteLimits limits, AtomicBoolean responded) {
+            this.limits = limits;
+            this.responded = responded;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (responded.compareAndSet(false, true)) {
+                limits.timeouts.increment();
+                LOGGER.warn("{} request timed out after {} ms", limits.name, limits.timeoutMs);
+                respondBlocking((HttpServletResponse) event.getAsyncContext().getResponse(),
+                        Constants.STATUS_SERVICE_UNAVAILABLE, "Request timed out");
+            } else {
+                LOGGER.warn("{} response not written {} ms after the route timeout, completing",
+                        limits.name, ASYNC_TIMEOUT_GRACE_MS);
+            }
+            event.getAsyncContext().complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            responded.set(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
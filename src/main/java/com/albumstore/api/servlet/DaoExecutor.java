@@ -0,0 +1,103 @@
+package com.albumstore.api.servlet;
+
+import com.albumstore.api.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行阻塞DAO调用的执行器：每个任务一个虚拟线程，用Semaphore把同时访问数据库的任务数限制在连接池大小以内，
+ * 超出的任务阻塞在Semaphore上（虚拟线程阻塞时不占用平台线程），而不是在连接池里排队或被拒绝
+ */
+final class DaoExecutor {
+    private static final Logger LOGGER = LogManager.getLogger(DaoExecutor.class);
+
+    private final String name;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    private DaoExecutor(String name, ExecutorService executor, int maxConcurrency) {
+        this.name = name;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("albumstore_dao_executor_active", "Tasks currently holding a database permit",
+                "executor", name, () -> maxConcurrency - permits.availablePermits());
+        registry.gauge("albumstore_dao_executor_waiting", "Tasks waiting for a database permit",
+                "executor", name, permits::getQueueLength);
+    }
+
+    /**
+     * 创建虚拟线程执行器；运行时不支持虚拟线程（Java 21以下）时返回null
+     * 通过反射调用，源码仍可以按较低的Java版本编译
+     */
+    static DaoExecutor virtualThreads(String name, int maxConcurrency) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ExecutorService executor = (ExecutorService) newExecutor.invoke(null, factory);
+            LOGGER.info("Virtual thread executor {} started, max {} concurrent database calls", name, maxConcurrency);
+            return new DaoExecutor(name, executor, maxConcurrency);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Virtual threads are not available on Java {}: {}",
+                    System.getProperty("java.version"), e.toString());
+            return null;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 提交任务；任务在取得许可后运行。执行器已关闭时抛出RejectedExecutionException，
+     * 等待许可时被中断则调用onInterrupted而不运行任务
+     */
+    void execute(Runnable task, Runnable onInterrupted) {
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                onInterrupted.run();
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * 停止接收新任务并等待已提交的任务结束
+     */
+    void shutdown(long timeoutMs) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Executor {} did not terminate in {} ms", name, timeoutMs);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.albumstore.api.servlet;
+
+import com.albumstore.api.metrics.LatencyHistogram;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 预编译的路由表：注册时把路径模式（如 /review/{type}/{albumId}）拆成段，
+ * 匹配时在原始URI上按下标逐段比较，不做split和substring；路径参数只记录起止位置，handler取用时才截取。
+ * 同一方法的路由按注册顺序匹配，字面量路由（如 /albums/search）要在同位置的参数路由之前注册。
+ */
+final class Router {
+    private final List<Route> getRoutes = new ArrayList<>();
+    private final List<Route> postRoutes = new ArrayList<>();
+    private Route lastRoute;
+
+    /**
+     * 路由处理器，路径参数通过match取得
+     */
+    @FunctionalInterface
+    interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response, RouteMatch match,
+                    boolean shouldLogDetails) throws ServletException, IOException;
+    }
+
+    Router get(String pattern, LatencyHistogram latency, Handler handler) {
+        return add(getRoutes, new Route("GET", pattern, null, latency, handler));
+    }
+
+    /**
+     * 只在请求带有指定查询参数时匹配的GET路由，如 /albums?ids=
+     */
+    Router get(String pattern, String requiredParameter, LatencyHistogram latency, Handler handler) {
+        return add(getRoutes, new Route("GET", pattern, requiredParameter, latency, handler));
+    }
+
+    Router post(String pattern, LatencyHistogram latency, Handler handler) {
+        return add(postRoutes, new Route("POST", pattern, null, latency, handler));
+    }
+
+    /**
+     * 把上一个注册的路由标记为始终在容器线程上执行：只访问内存，或自己管理AsyncContext
+     */
+    Router inline() {
+        return inline(true);
+    }
+
+    Router inline(boolean inline) {
+        lastRoute.inline = inline;
+        return this;
+    }
+
+    private Router add(List<Route> routes, Route route) {
+        routes.add(route);
+        lastRoute = route;
+        return this;
+    }
+
+    /**
+     * 按请求方法和去掉context path后的URI匹配路由，没有匹配时返回null
+     */
+    RouteMatch match(HttpServletRequest request) {
+        return match(request.getMethod(), request.getRequestURI(), request.getContextPath().length(), request, false);
+    }
+
+    /**
+     * 不依赖HttpServletRequest的匹配入口，带查询参数条件的路由按hasRequiredParameter判断
+     */
+    RouteMatch match(String method, String uri, int offset, boolean hasRequiredParameter) {
+        return match(method, uri, offset, null, hasRequiredParameter);
+    }
+
+    private RouteMatch match(String method, String uri, int offset, HttpServletRequest request,
+                             boolean hasRequiredParameter) {
+        List<Route> routes = "POST".equals(method) ? postRoutes : getRoutes;
+        for (int i = 0, n = routes.size(); i < n; i++) {
+            Route route = routes.get(i);
+            if (route.requiredParameter != null && !(request != null
+                    ? request.getParameter(route.requiredParameter) != null : hasRequiredParameter)) {
+                continue;
+            }
+            RouteMatch match = route.match(uri, offset);
+            if (match != null) {
+                return match;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 编译后的路由：literals[i]为null表示第i段是参数
+     */
+    static final class Route {
+        private final String name;
+        private final String[] literals;
+        private final String[] parameterNames;
+        private final String requiredParameter;
+        private final LatencyHistogram latency;
+        private final Handler handler;
+        private boolean inline = false;
+
+        Route(String method, String pattern, String requiredParameter, LatencyHistogram latency, Handler handler) {
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+            }
+            String[] segments = pattern.substring(1).split("/", -1);
+            this.literals = new String[segments.length];
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    names.add(segment.substring(1, segment.length() - 1));
+                } else if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("Route pattern has an empty segment: " + pattern);
+                } else {
+                    literals[i] = segment;
+                }
+            }
+            this.name = method + " " + pattern + (requiredParameter == null ? "" : "?" + requiredParameter);
+            this.parameterNames = names.toArray(new String[0]);
+            this.requiredParameter = requiredParameter;
+            this.latency = latency;
+            this.handler = handler;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        Handler getHandler() {
+            return handler;
+        }
+
+        boolean isInline() {
+            return inline;
+        }
+
+        /**
+         * 从offset开始逐段比较；末尾的一个'/'忽略，参数段不能为空
+         */
+        RouteMatch match(String uri, int offset) {
+            int end = uri.length();
+            if (end > offset + 1 && uri.charAt(end - 1) == '/') {
+                end--;
+            }
+            int[] bounds = null; // 遇到第一个参数段时才分配
+            int parameterIndex = 0;
+            int pos = offset;
+            for (String literal : literals) {
+                if (pos >= end || uri.charAt(pos) != '/') {
+                    return null;
+                }
+                int segmentStart = pos + 1;
+                int segmentEnd = uri.indexOf('/', segmentStart);
+                if (segmentEnd < 0 || segmentEnd > end) {
+                    segmentEnd = end;
+                }
+                if (literal == null) {
+                    if (segmentEnd == segmentStart) {
+                        return null;
+                    }
+                    if (bounds == null) {
+                        bounds = new int[parameterNames.length * 2];
+                    }
+                    bounds[parameterIndex++] = segmentStart;
+                    bounds[parameterIndex++] = segmentEnd;
+                } else if (segmentEnd - segmentStart != literal.length()
+                        || !uri.regionMatches(segmentStart, literal, 0, literal.length())) {
+                    return null;
+                }
+                pos = segmentEnd;
+            }
+            if (pos != end) {
+                return null;
+            }
+            return new RouteMatch(this, uri, bounds);
+        }
+
+        private int parameterIndex(String parameterName) {
+            for (int i = 0; i < parameterNames.length; i++) {
+                if (parameterNames[i].equals(parameterName)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Route " + name + " has no parameter " + parameterName);
+        }
+    }
+
+    /**
+     * 匹配结果，持有原始URI和各路径参数的起止位置
+     */
+    static final class RouteMatch {
+        private final Route route;
+        private final String uri;
+        private final int[] bounds;
+
+        RouteMatch(Route route, String uri, int[] bounds) {
+            this.route = route;
+            this.uri = uri;
+            this.bounds = bounds;
+        }
+
+        Route getRoute() {
+            return route;
+        }
+
+        /**
+         * 按模式中的名称取路径参数
+         */
+        String get(String parameterName) {
+            int index = route.parameterIndex(parameterName);
+            return uri.substring(bounds[index * 2], bounds[index * 2 + 1]);
+        }
+
+        @Override
+        public String toString() {
+            return route.name + " " + Arrays.toString(bounds);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.albumstore.api.storage;
+
+import com.albumstore.api.util.HashUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.stream.Stream;
+
+/**
+ * 本地文件系统图片存储
+ * 图片先写入临时文件并同时计算SHA-256，完成后原子移动到 {root}/{hash前两位}/{hash}；
+ * 目标已存在时说明内容相同，直接丢弃临时文件。
+ */
+public class FileSystemImageStore implements ImageStore {
+    private static final Logger LOGGER = LogManager.getLogger(FileSystemImageStore.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String TMP_DIR = "tmp";
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public FileSystemImageStore(String rootDir) throws IOException {
+        this.root = Paths.get(rootDir);
+        this.tmpDir = root.resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        LOGGER.info("File system image store initialized at {}", root);
+    }
+
+    @Override
+    public StoredImage store(InputStream imageStream) throws IOException {
+        MessageDigest digest = HashUtil.newSha256();
+        Path tmpFile = Files.createTempFile(tmpDir, "upload-", ".part");
+        long size = 0;
+
+        try {
+            try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+                byte[] chunk = new byte[BUFFER_SIZE];
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                int read;
+                while ((read = imageStream.read(chunk)) != -1) {
+                    digest.update(chunk, 0, read);
+                    buffer.clear().limit(read);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    size += read;
+                }
+                channel.force(false);
+            }
+
+            String hash = HashUtil.toHex(digest.digest());
+            Path target = pathFor(hash);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                LOGGER.debug("Image {} already stored, deduplicated", hash);
+            } else {
+                Files.move(tmpFile, target, StandardCopyOption.ATOMIC_MOVE);
+                LOGGER.debug("Stored new image {} ({} bytes)", hash, size);
+            }
+            return new StoredImage(hash, size);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    @Override
+    public StoredImage adopt(Path file, StoredImage image) throws IOException {
+        Path target = pathFor(image.getHash());
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            LOGGER.debug("Image {} already stored, deduplicated", image.getHash());
+            return image;
+        }
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // 不在同一文件系统上：先复制到存储的临时目录，再原子移动到目标位置
+            Path tmpFile = Files.createTempFile(tmpDir, "adopt-", ".part");
+            try {
+                Files.copy(file, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmpFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+        }
+        LOGGER.debug("Stored new image {} ({} bytes)", image.getHash(), image.getSize());
+        return image;
+    }
+
+    @Override
+    public FileChannel open(String hash) throws IOException {
+        try {
+            return FileChannel.open(pathFor(hash), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        try {
+            return Files.size(pathFor(hash));
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 删除已存储的图片文件。临时目录中是正在进行的上传，由上传线程自己删除；
+     * 前缀目录也保留，否则并发上传在createDirectories之后、移动之前目录被删，移动会失败
+     */
+    @Override
+    public void clear() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(path -> !path.startsWith(tmpDir) && Files.isRegularFile(path))
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            LOGGER.warn("Failed to delete image file {}", path, e);
+                        }
+                    });
+        }
+        LOGGER.info("File system image store cleared");
+    }
+
+    private Path pathFor(String hash) {
+        if (!HashUtil.isSha256Hex(hash)) {
+            throw new IllegalArgumentException("Invalid image hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
@@ -0,0 +1,43 @@
+package com.albumstore.api.storage;
+
+/**
+ * 专辑图片的元数据：内容哈希、大小以及图片保存的位置
+ */
+public class ImageDescriptor {
+    private final String hash;
+    private final long size;
+    private final boolean external;
+
+    public ImageDescriptor(String hash, long size, boolean external) {
+        this.hash = hash;
+        this.size = size;
+        this.external = external;
+    }
+
+    /**
+     * 图片的SHA-256；早期写入的专辑没有记录哈希时为null
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 图片是否保存在外部图片存储中（否则在albums.image_data中）
+     */
+    public boolean isExternal() {
+        return external;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageDescriptor{" +
+                "hash='" + hash + '\'' +
+                ", size=" + size +
+                ", external=" + external +
+                '}';
+    }
+}
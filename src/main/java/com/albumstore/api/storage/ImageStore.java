@@ -0,0 +1,38 @@
+package com.albumstore.api.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * 专辑图片存储
+ * 图片按内容的SHA-256寻址，相同内容只保存一份；数据库中只记录哈希和大小
+ */
+public interface ImageStore {
+
+    /**
+     * 保存图片内容，返回其哈希和大小
+     */
+    StoredImage store(InputStream imageStream) throws IOException;
+
+    /**
+     * 把已计算好哈希和大小的本地文件移入存储（尽量移动而不是复制），返回存储后的图片
+     */
+    StoredImage adopt(Path file, StoredImage image) throws IOException;
+
+    /**
+     * 打开图片用于读取，图片不存在时返回null
+     */
+    FileChannel open(String hash) throws IOException;
+
+    /**
+     * 获取已存储图片的大小，图片不存在时返回-1
+     */
+    long size(String hash) throws IOException;
+
+    /**
+     * 删除所有图片（数据库重置时调用）
+     */
+    void clear() throws IOException;
+}
@@ -0,0 +1,43 @@
+package com.albumstore.api.storage;
+
+import com.albumstore.api.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+
+/**
+ * 根据配置创建图片存储
+ * image.store.type=database 时图片仍保存在albums.image_data中，此时getInstance返回null
+ */
+public class ImageStores {
+    private static final Logger LOGGER = LogManager.getLogger(ImageStores.class);
+    public static final String TYPE_DATABASE = "database";
+    public static final String TYPE_FILESYSTEM = "filesystem";
+
+    private static ImageStore instance;
+    private static boolean initialized = false;
+
+    private ImageStores() {
+    }
+
+    public static synchronized ImageStore getInstance() {
+        if (!initialized) {
+            AppConfig config = AppConfig.getInstance();
+            String type = config.getImageStoreType();
+            if (TYPE_FILESYSTEM.equals(type)) {
+                try {
+                    instance = new FileSystemImageStore(config.getImageStoreDir());
+                } catch (IOException e) {
+                    LOGGER.error("Failed to initialize file system image store", e);
+                    throw new RuntimeException("Image store initialization failed", e);
+                }
+            } else if (!TYPE_DATABASE.equals(type)) {
+                throw new IllegalArgumentException("Unknown image.store.type: " + type);
+            }
+            initialized = true;
+            LOGGER.info("Image store type: {}", type);
+        }
+        return instance;
+    }
+}
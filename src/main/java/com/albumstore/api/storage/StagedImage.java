@@ -0,0 +1,118 @@
+package com.albumstore.api.storage;
+
+import com.albumstore.api.util.HashUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * 等待写入数据库的图片
+ * 图片已保存到外部存储时只携带哈希和大小；图片需要写入image_data时，内容位于内存或本地临时文件中。
+ * 使用完毕后需close以删除临时文件。
+ */
+public class StagedImage implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StoredImage storedImage;
+    private final byte[] data;
+    private final Path spoolFile;
+
+    private StagedImage(StoredImage storedImage, byte[] data, Path spoolFile) {
+        this.storedImage = storedImage;
+        this.data = data;
+        this.spoolFile = spoolFile;
+    }
+
+    /**
+     * 已保存到外部图片存储的图片
+     */
+    public static StagedImage external(StoredImage storedImage) {
+        return new StagedImage(storedImage, null, null);
+    }
+
+    /**
+     * 内容在内存中的图片
+     */
+    public static StagedImage inMemory(byte[] data) {
+        StoredImage storedImage = new StoredImage(HashUtil.toHex(HashUtil.newSha256().digest(data)), data.length);
+        return new StagedImage(storedImage, data, null);
+    }
+
+    /**
+     * 用固定大小的缓冲区把图片流写入临时文件，同时计算哈希和大小
+     */
+    public static StagedImage spool(InputStream imageStream) throws IOException {
+        MessageDigest digest = HashUtil.newSha256();
+        Path spoolFile = Files.createTempFile("album-upload-", ".tmp");
+        long size = 0;
+
+        try (OutputStream out = Files.newOutputStream(spoolFile)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = imageStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+
+        return new StagedImage(new StoredImage(HashUtil.toHex(digest.digest()), size), null, spoolFile);
+    }
+
+    /**
+     * 把内存或临时文件中的图片移入外部存储，返回对应的外部图片；临时文件被移走或在close时删除
+     */
+    public StagedImage moveTo(ImageStore imageStore) throws IOException {
+        if (spoolFile != null) {
+            return external(imageStore.adopt(spoolFile, storedImage));
+        }
+        if (data != null) {
+            return external(imageStore.store(new ByteArrayInputStream(data)));
+        }
+        return this;
+    }
+
+    /**
+     * 是否已保存在外部存储（不需要写入image_data）
+     */
+    public boolean isExternal() {
+        return data == null && spoolFile == null;
+    }
+
+    /**
+     * 打开图片内容用于写入数据库，外部存储的图片返回null
+     */
+    public InputStream openDataStream() throws IOException {
+        if (data != null) {
+            return new ByteArrayInputStream(data);
+        }
+        if (spoolFile != null) {
+            return Files.newInputStream(spoolFile);
+        }
+        return null;
+    }
+
+    public String getHash() {
+        return storedImage.getHash();
+    }
+
+    public long getSize() {
+        return storedImage.getSize();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spoolFile != null) {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.albumstore.api.storage;
+
+public class StoredImage {
+    private final String hash;
+    private final long size;
+
+    public StoredImage(String hash, long size) {
+        this.hash = hash;
+        this.size = size;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "StoredImage{" +
+                "hash='" + hash + '\'' +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,141 @@
+package com.albumstore.api.util;
+
+import com.albumstore.api.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按时间递增的专辑ID生成器（Snowflake结构）
+ * 64位ID = 41位毫秒时间戳（自EPOCH_MILLIS起）| 10位节点ID | 12位毫秒内序号，
+ * 编码为13位定长Crockford base32字符串，字符串的字典序与生成时间一致，插入总是追加在主键索引末尾。
+ * 只有各节点显式配置了不同的节点ID时，生成的ID才不会跨节点冲突；未配置时节点ID由哈希推导，
+ * 两个实例可能得到相同的节点ID，此时冲突只能靠插入时主键冲突后换新ID重试来解决。
+ */
+public class AlbumIdGenerator {
+    private static final Logger LOGGER = LogManager.getLogger(AlbumIdGenerator.class);
+    private static AlbumIdGenerator instance;
+
+    public static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    public static final int ID_LENGTH = 13;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+        }
+    }
+
+    private final long nodeId;
+    private long lastTimestamp = -1L;
+    private long sequence = 0L;
+
+    AlbumIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public static synchronized AlbumIdGenerator getInstance() {
+        if (instance == null) {
+            instance = new AlbumIdGenerator(resolveNodeId(AppConfig.getInstance().getIdNodeId()));
+        }
+        return instance;
+    }
+
+    /**
+     * 生成下一个ID；同一毫秒内序号用完或系统时钟回拨时沿用上一个时间戳继续递增，保证单调
+     */
+    public String nextId() {
+        long id;
+        synchronized (this) {
+            long timestamp = System.currentTimeMillis() - EPOCH_MILLIS;
+            if (timestamp > lastTimestamp) {
+                lastTimestamp = timestamp;
+                sequence = 0;
+            } else {
+                sequence = (sequence + 1) & SEQUENCE_MASK;
+                if (sequence == 0) {
+                    // 当前毫秒的序号已用完，借用下一毫秒
+                    lastTimestamp++;
+                }
+            }
+            id = (lastTimestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+        }
+        return encode(id);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 从ID中解析生成时间（epoch毫秒）；早期的UUID格式ID无法解析，返回-1
+     */
+    public static long timestampOf(String albumId) {
+        long id = decode(albumId);
+        return id < 0 ? -1 : (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static String encode(long id) {
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 解码13位base32 ID，格式不符时返回-1
+     */
+    public static long decode(String albumId) {
+        // 13个字符共65位，首字符只能是0-7
+        if (albumId == null || albumId.length() != ID_LENGTH || albumId.charAt(0) > '7') {
+            return -1;
+        }
+        long id = 0;
+        for (int i = 0; i < ID_LENGTH; i++) {
+            char c = albumId.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            id = (id << 5) | value;
+        }
+        return id;
+    }
+
+    /**
+     * 未配置id.nodeId时由主机名和进程号的哈希推导节点ID，不同实例可能得到相同的值；多实例部署时必须显式配置不同的节点ID
+     */
+    private static long resolveNodeId(int configured) {
+        if (configured >= 0) {
+            return configured;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = Long.toString(ThreadLocalRandom.current().nextLong());
+        }
+        String pid = ManagementFactory.getRuntimeMXBean().getName();
+        long nodeId = ((host + "/" + pid).hashCode() & 0x7fffffffL) % (MAX_NODE_ID + 1);
+        LOGGER.warn("id.nodeId is not configured, derived node ID {} from {}/{}; IDs may collide with other "
+                + "instances, set a distinct id.nodeId on each instance", nodeId, host, pid);
+        return nodeId;
+    }
+}
@@ -0,0 +1,72 @@
+package com.albumstore.api.util;
+
+/**
+ * HTTP Range请求头中的单个字节范围（闭区间）
+ * 只支持单个范围；多范围请求按不支持处理，返回完整内容
+ */
+public class ByteRange {
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 解析Range头；没有Range头、格式无效或为多范围时返回null，
+     * 范围超出内容大小时返回UNSATISFIABLE
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            if (dash == 0) {
+                // bytes=-N 表示最后N个字节
+                long suffixLength = Long.parseLong(spec.substring(1));
+                if (suffixLength <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffixLength), size - 1);
+            }
+
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? size - 1 : Long.parseLong(spec.substring(dash + 1));
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
@@ -4,8 +4,15 @@ public class Constants {
     // API 路径
 // API 路径
     public static final String ALBUMS_PATH = "/albums";
+    public static final String ALBUMS_BULK_PATH = "/albums/bulk"; // 批量导入专辑
+    public static final String ALBUMS_SEARCH_PATH_INFO = "/search"; // 专辑搜索 /albums/search?q=&limit=
     public static final String REVIEW_PATH = "/review";
+    public static final String REVIEW_STATS_PATH = "/review/stats"; // 批量获取评论统计
+    public static final String REVIEW_TOP_PATH_INFO = "/top"; // 排行榜 /review/top?n=&type=
     public static final String ADMIN_RESET_PATH = "/admin/reset"; // 新增的管理员重置路径
+    public static final String ADMIN_POOL_PATH = "/admin/pool"; // 连接池实时统计
+    public static final String ADMIN_METRICS_PATH = "/admin/metrics"; // Prometheus格式的指标
+    public static final String IMAGE_PATH_SUFFIX = "/image"; // 专辑图片下载路径 /albums/{albumID}/image
 
     // 评论类型
     public static final String REVIEW_LIKE = "like";
@@ -14,13 +21,23 @@ public class Constants {
     // HTTP状态码
     public static final int STATUS_OK = 200;
     public static final int STATUS_CREATED = 201;
+    public static final int STATUS_PARTIAL_CONTENT = 206;
+    public static final int STATUS_NOT_MODIFIED = 304;
     public static final int STATUS_BAD_REQUEST = 400;
     public static final int STATUS_NOT_FOUND = 404;
+    public static final int STATUS_RANGE_NOT_SATISFIABLE = 416;
     public static final int STATUS_INTERNAL_SERVER_ERROR = 500;
+    public static final int STATUS_SERVICE_UNAVAILABLE = 503;
 
     // Content-Type
     public static final String CONTENT_TYPE_JSON = "application/json";
+    public static final String CONTENT_TYPE_JSON_UTF8 = "application/json;charset=UTF-8"; // 直接写字节的JSON响应
+    public static final String CONTENT_TYPE_OCTET_STREAM = "application/octet-stream";
+    public static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+    public static final String CONTENT_TYPE_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
 
     // 文件上传限制
     public static final int MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
+    // 批量导入每行的最大字符数：Base64编码的最大图片加上其它字段
+    public static final int MAX_BULK_LINE_LENGTH = (MAX_FILE_SIZE + 2) / 3 * 4 + 64 * 1024;
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.albumstore.api.util;
+
+import com.albumstore.api.model.AlbumInfo;
+
+/**
+ * ETag生成与If-None-Match匹配
+ */
+public class ETagUtil {
+
+    private ETagUtil() {
+    }
+
+    /**
+     * 专辑信息的ETag：对artist/title/year做64位FNV-1a哈希。专辑写入后不会修改，缓存命中时无需访问数据库即可得到
+     */
+    public static String forAlbum(AlbumInfo albumInfo) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, albumInfo.getArtist());
+        h = fnv(h, albumInfo.getTitle());
+        h = fnv(h, albumInfo.getYear());
+        return "\"a-" + Long.toHexString(h) + "\"";
+    }
+
+    /**
+     * 评论统计的ETag：评论只增不减，喜欢/不喜欢计数本身就是版本号
+     */
+    public static String forReviewStats(long likes, long dislikes) {
+        return "\"r-" + likes + "-" + dislikes + "\"";
+    }
+
+    /**
+     * If-None-Match是否与当前ETag匹配（弱比较，支持逗号分隔的多个值和*）
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || stripWeak(value).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static long fnv(long h, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        // 字段分隔符，避免 ("ab","c") 与 ("a","bc") 冲突
+        h ^= 0xff;
+        h *= 0x100000001b3L;
+        return h;
+    }
+}
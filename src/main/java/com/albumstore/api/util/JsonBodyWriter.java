@@ -0,0 +1,278 @@
+package com.albumstore.api.util;
+
+import com.albumstore.api.model.AlbumInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 固定结构响应体的JSON写入器，直接把转义后的UTF-8字节写入每个线程复用的缓冲区，再一次性写到输出流
+ * 输出与Gson默认配置一致（字段顺序、null字段省略、HTML字符转义），但不经过反射、不创建中间字符串。
+ * 用法：JsonBodyWriter.get().albumInfo(info).writeTo(out)，在同一线程内写完之前不要再次调用get()
+ */
+public final class JsonBodyWriter {
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024; // 超过此大小的缓冲区用完后不再保留
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final ThreadLocal<JsonBodyWriter> WRITERS = ThreadLocal.withInitial(JsonBodyWriter::new);
+
+    // 固定文案的{"msg":...}响应体（错误和成功提示）在类加载时编码好，发送时直接写出
+    private static final Map<String, byte[]> PRE_ENCODED_MESSAGES = preEncodeMessages(
+            "Album not found",
+            "Album search is not available",
+            "At least one album ID is required",
+            "Failed to get albums",
+            "Failed to get review stats",
+            "Failed to list albums",
+            "Failed to process review",
+            "Failed to read album image",
+            "Failed to save album",
+            "Invalid cursor",
+            "Invalid path or album ID is required",
+            "Missing required fields",
+            "Multipart content expected",
+            "Query parameter q is required",
+            "Request body must be a JSON array of album IDs",
+            "Requested range not satisfiable",
+            "Reset database failed",
+            "Reset database successful",
+            "Review ranking is disabled",
+            "Review stats are not available",
+            "Server is shutting down",
+            "Too many pending requests",
+            "Request timed out");
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    private JsonBodyWriter() {
+    }
+
+    /**
+     * 取得当前线程的写入器并清空
+     */
+    public static JsonBodyWriter get() {
+        JsonBodyWriter writer = WRITERS.get();
+        if (writer.buffer.length > MAX_RETAINED_CAPACITY) {
+            writer.buffer = new byte[INITIAL_CAPACITY];
+        }
+        writer.length = 0;
+        return writer;
+    }
+
+    /**
+     * 固定文案对应的{"msg":...}字节，不在预编码列表中时返回null
+     */
+    public static byte[] preEncoded(String msg) {
+        return msg == null ? null : PRE_ENCODED_MESSAGES.get(msg);
+    }
+
+    private static Map<String, byte[]> preEncodeMessages(String... messages) {
+        Map<String, byte[]> encoded = new HashMap<>();
+        JsonBodyWriter writer = new JsonBodyWriter();
+        for (String message : messages) {
+            writer.length = 0;
+            encoded.put(message, writer.errorMsg(message).toByteArray());
+        }
+        return Collections.unmodifiableMap(encoded);
+    }
+
+    /**
+     * {"artist":...,"title":...,"year":...}
+     */
+    public JsonBodyWriter albumInfo(AlbumInfo albumInfo) {
+        writeByte('{');
+        boolean first = field("artist", albumInfo.getArtist(), true);
+        first = field("title", albumInfo.getTitle(), first);
+        field("year", albumInfo.getYear(), first);
+        writeByte('}');
+        return this;
+    }
+
+    /**
+     * {"albumID":...,"imageSize":...}
+     */
+    public JsonBodyWriter imageMetaData(String albumId, String imageSize) {
+        writeByte('{');
+        boolean first = field("albumID", albumId, true);
+        field("imageSize", imageSize, first);
+        writeByte('}');
+        return this;
+    }
+
+    /**
+     * {"msg":...}
+     */
+    public JsonBodyWriter errorMsg(String msg) {
+        writeByte('{');
+        field("msg", msg, true);
+        writeByte('}');
+        return this;
+    }
+
+    /**
+     * {"likes":"n","dislikes":"n"}，计数以字符串形式输出，与原有接口保持一致
+     */
+    public JsonBodyWriter reviewStats(long likes, long dislikes) {
+        writeAscii("{\"likes\":\"");
+        writeLong(likes);
+        writeAscii("\",\"dislikes\":\"");
+        writeLong(dislikes);
+        writeAscii("\"}");
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * 写入一个字符串字段，值为null时与Gson一样省略；返回写完后是否仍是第一个字段
+     */
+    private boolean field(String name, String value, boolean first) {
+        if (value == null) {
+            return first;
+        }
+        if (!first) {
+            writeByte(',');
+        }
+        writeByte('"');
+        writeAscii(name);
+        writeAscii("\":");
+        writeString(value);
+        return false;
+    }
+
+    /**
+     * 写入带引号的JSON字符串，转义规则与Gson的htmlSafe模式相同，非ASCII字符编码为UTF-8
+     */
+    private void writeString(String value) {
+        writeByte('"');
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"':
+                        writeAscii("\\\"");
+                        break;
+                    case '\\':
+                        writeAscii("\\\\");
+                        break;
+                    case '\n':
+                        writeAscii("\\n");
+                        break;
+                    case '\r':
+                        writeAscii("\\r");
+                        break;
+                    case '\t':
+                        writeAscii("\\t");
+                        break;
+                    case '\b':
+                        writeAscii("\\b");
+                        break;
+                    case '\f':
+                        writeAscii("\\f");
+                        break;
+                    case '<':
+                    case '>':
+                    case '&':
+                    case '=':
+                    case '\'':
+                        writeUnicodeEscape(c);
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            writeUnicodeEscape(c);
+                        } else {
+                            writeByte(c);
+                        }
+                }
+            } else if (c == '\u2028' || c == '\u2029') {
+                writeUnicodeEscape(c);
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[length++] = (byte) (0xc0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buffer[length++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符无法编码为UTF-8，与String.getBytes一样替换为'?'
+                writeByte('?');
+            } else {
+                ensureCapacity(3);
+                buffer[length++] = (byte) (0xe0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeUnicodeEscape(char c) {
+        ensureCapacity(6);
+        buffer[length++] = '\\';
+        buffer[length++] = 'u';
+        buffer[length++] = HEX[(c >> 12) & 0xf];
+        buffer[length++] = HEX[(c >> 8) & 0xf];
+        buffer[length++] = HEX[(c >> 4) & 0xf];
+        buffer[length++] = HEX[c & 0xf];
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeAscii("-9223372036854775808");
+                return;
+            }
+            writeByte('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private void writeAscii(String ascii) {
+        int len = ascii.length();
+        ensureCapacity(len);
+        for (int i = 0; i < len; i++) {
+            buffer[length++] = (byte) ascii.charAt(i);
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
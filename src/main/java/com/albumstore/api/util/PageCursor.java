@@ -0,0 +1,48 @@
+package com.albumstore.api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * 专辑列表的不透明翻页游标：(created_at, id) 编码为URL安全的Base64
+ */
+public class PageCursor {
+    private final Timestamp createdAt;
+    private final String albumId;
+
+    public PageCursor(Timestamp createdAt, String albumId) {
+        this.createdAt = createdAt;
+        this.albumId = albumId;
+    }
+
+    public String encode() {
+        String raw = createdAt.getTime() + ":" + albumId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，格式无效时返回null
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                return null;
+            }
+            long millis = Long.parseLong(raw.substring(0, separator));
+            return new PageCursor(new Timestamp(millis), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getAlbumId() {
+        return albumId;
+    }
+}
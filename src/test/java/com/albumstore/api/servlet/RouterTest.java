@@ -0,0 +1,105 @@
+package com.albumstore.api.servlet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Router的匹配规则：末尾斜杠、空段、注册顺序和查询参数条件
+ */
+class RouterTest {
+    private static final Router.Handler NOOP = (request, response, match, logDetails) -> {
+    };
+
+    private final Router router = new Router()
+            .post("/albums/bulk", null, NOOP)
+            .post("/albums", null, NOOP)
+            .post("/review/{type}/{albumId}", null, NOOP)
+            .get("/albums/search", null, NOOP)
+            .get("/albums/{albumId}/image", null, NOOP)
+            .get("/albums/{albumId}", null, NOOP)
+            .get("/albums", "ids", null, NOOP)
+            .get("/albums", null, NOOP);
+
+    @Test
+    void matchesParametersByName() {
+        Router.RouteMatch match = get("/review/like/0A87SPE0M0N86", "POST", false);
+        assertEquals("POST /review/{type}/{albumId}", match.getRoute().getName());
+        assertEquals("like", match.get("type"));
+        assertEquals("0A87SPE0M0N86", match.get("albumId"));
+        assertThrows(IllegalArgumentException.class, () -> match.get("id"));
+    }
+
+    @Test
+    void ignoresOneTrailingSlash() {
+        assertEquals("GET /albums/{albumId}", get("/albums/0A87SPE0M0N86/", "GET", false).getRoute().getName());
+        assertEquals("0A87SPE0M0N86", get("/albums/0A87SPE0M0N86/", "GET", false).get("albumId"));
+        assertEquals("GET /albums", get("/albums/", "GET", false).getRoute().getName());
+        assertEquals("POST /albums/bulk", get("/albums/bulk/", "POST", false).getRoute().getName());
+        assertNull(get("/albums//", "GET", false));
+        assertNull(get("/albums/0A87SPE0M0N86//", "GET", false));
+    }
+
+    @Test
+    void rejectsEmptySegments() {
+        assertNull(get("/albums//image", "GET", false));
+        assertNull(get("/review//0A87SPE0M0N86", "POST", false));
+        assertNull(get("/review/like/", "POST", false));
+        assertNull(get("//albums", "GET", false));
+        assertNull(get("", "GET", false));
+        assertNull(get("/", "GET", false));
+    }
+
+    @Test
+    void literalSegmentsMustMatchExactly() {
+        assertNull(get("/albumsX", "GET", false));
+        assertNull(get("/album", "GET", false));
+        assertNull(get("/albums/0A87SPE0M0N86/images", "GET", false));
+        assertNull(get("/albums/0A87SPE0M0N86/image/extra", "GET", false));
+        assertNull(get("/review/like", "POST", false));
+        assertNull(get("/albums/search", "POST", false));
+    }
+
+    @Test
+    void literalRouteRegisteredFirstWinsOverParameter() {
+        assertEquals("GET /albums/search", get("/albums/search", "GET", false).getRoute().getName());
+        assertEquals("GET /albums/{albumId}/image",
+                get("/albums/search/image", "GET", false).getRoute().getName());
+
+        // 参数路由先注册时会吞掉同位置的字面量
+        Router reversed = new Router()
+                .get("/albums/{albumId}", null, NOOP)
+                .get("/albums/search", null, NOOP);
+        assertEquals("GET /albums/{albumId}",
+                reversed.match("GET", "/albums/search", 0, false).getRoute().getName());
+    }
+
+    @Test
+    void requiredParameterSelectsRoute() {
+        assertEquals("GET /albums?ids", get("/albums", "GET", true).getRoute().getName());
+        assertEquals("GET /albums", get("/albums", "GET", false).getRoute().getName());
+        // 查询参数条件只影响带条件的路由
+        assertEquals("GET /albums/{albumId}", get("/albums/0A87SPE0M0N86", "GET", true).getRoute().getName());
+    }
+
+    @Test
+    void matchesAfterContextPath() {
+        Router.RouteMatch match = router.match("GET", "/albumstore/albums/0A87SPE0M0N86", "/albumstore".length(),
+                false);
+        assertEquals("0A87SPE0M0N86", match.get("albumId"));
+        assertNull(router.match("GET", "/albumstore", "/albumstore".length(), false));
+    }
+
+    @Test
+    void rejectsInvalidPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> new Router().get("albums", null, NOOP));
+        assertThrows(IllegalArgumentException.class, () -> new Router().get("/albums//image", null, NOOP));
+        assertThrows(IllegalArgumentException.class, () -> new Router().get("/albums/", null, NOOP));
+    }
+
+    private Router.RouteMatch get(String uri, String method, boolean hasIds) {
+        return router.match(method, uri, 0, hasIds);
+    }
+}
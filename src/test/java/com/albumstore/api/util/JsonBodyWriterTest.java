@@ -0,0 +1,126 @@
+package com.albumstore.api.util;
+
+import com.albumstore.api.model.AlbumInfo;
+import com.albumstore.api.model.ErrorMsg;
+import com.albumstore.api.model.ImageMetaData;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * JsonBodyWriter的输出必须与默认配置的Gson逐字节一致
+ */
+class JsonBodyWriterTest {
+    private static final Gson GSON = new Gson();
+
+    private static final String[] VALUES = {
+            "",
+            "Never Mind The Bollocks!",
+            "<script>alert('x')</script> & a=b",
+            "quote \" backslash \\ slash /",
+            "\b\f\n\r\t",
+            "\u0000\u0001\u001f\u007f",
+            "line\u2028separator\u2029paragraph",
+            "café ß 中文 €",
+            "emoji 🎸 𝄞",
+            "lone \ud83c high and \udfb8 low",
+    };
+
+    @Test
+    void albumInfoMatchesGson() {
+        for (String value : VALUES) {
+            assertMatchesGson(new AlbumInfo(value, value, value),
+                    JsonBodyWriter.get().albumInfo(new AlbumInfo(value, value, value)));
+        }
+    }
+
+    @Test
+    void albumInfoOmitsNullFieldsLikeGson() {
+        AlbumInfo[] albums = {
+                new AlbumInfo(null, null, null),
+                new AlbumInfo("artist", null, null),
+                new AlbumInfo(null, "title", null),
+                new AlbumInfo(null, null, "1977"),
+                new AlbumInfo(null, "title", "1977"),
+        };
+        for (AlbumInfo album : albums) {
+            assertMatchesGson(album, JsonBodyWriter.get().albumInfo(album));
+        }
+    }
+
+    @Test
+    void imageMetaDataMatchesGson() {
+        for (String value : VALUES) {
+            assertMatchesGson(new ImageMetaData(value, "3475"), JsonBodyWriter.get().imageMetaData(value, "3475"));
+        }
+        assertMatchesGson(new ImageMetaData(null, "3475"), JsonBodyWriter.get().imageMetaData(null, "3475"));
+        assertMatchesGson(new ImageMetaData("0A87SPE0M0N86", null),
+                JsonBodyWriter.get().imageMetaData("0A87SPE0M0N86", null));
+    }
+
+    @Test
+    void errorMsgMatchesGson() {
+        for (String value : VALUES) {
+            assertMatchesGson(new ErrorMsg(value), JsonBodyWriter.get().errorMsg(value));
+        }
+        assertMatchesGson(new ErrorMsg(null), JsonBodyWriter.get().errorMsg(null));
+    }
+
+    @Test
+    void reviewStatsMatchesGson() {
+        long[] counts = {0, 7, 1234, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        for (long count : counts) {
+            Map<String, String> stats = new LinkedHashMap<>();
+            stats.put("likes", String.valueOf(count));
+            stats.put("dislikes", String.valueOf(count / 3));
+            assertMatchesGson(stats, JsonBodyWriter.get().reviewStats(count, count / 3));
+        }
+    }
+
+    @Test
+    void preEncodedMatchesErrorMsg() {
+        byte[] expected = GSON.toJson(new ErrorMsg("Album not found")).getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, JsonBodyWriter.preEncoded("Album not found"));
+        assertNull(JsonBodyWriter.preEncoded("Album 0A87SPE0M0N86 not found"));
+        assertNull(JsonBodyWriter.preEncoded(null));
+    }
+
+    @Test
+    void longValuesGrowTheBuffer() {
+        StringBuilder value = new StringBuilder();
+        while (value.length() < 100_000) {
+            value.append("<中🎸>");
+        }
+        assertMatchesGson(new ErrorMsg(value.toString()), JsonBodyWriter.get().errorMsg(value.toString()));
+        // 超过保留上限的缓冲区被替换后仍然可以正常写入
+        assertMatchesGson(new ErrorMsg("Album not found"), JsonBodyWriter.get().errorMsg("Album not found"));
+    }
+
+    @Test
+    void writeToWritesTheSameBytes() throws IOException {
+        JsonBodyWriter writer = JsonBodyWriter.get().albumInfo(new AlbumInfo("a", "b", "c"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        assertEquals(writer.length(), out.size());
+        assertArrayEquals(writer.toByteArray(), out.toByteArray());
+    }
+
+    /**
+     * 比较UTF-8字节：Gson输出的字符串里保留不成对的代理字符，编码为字节时才替换为'?'
+     */
+    private static void assertMatchesGson(Object expected, JsonBodyWriter actual) {
+        byte[] json = GSON.toJson(expected).getBytes(StandardCharsets.UTF_8);
+        byte[] written = actual.toByteArray();
+        assertEquals(new String(json, StandardCharsets.UTF_8), new String(written, StandardCharsets.UTF_8));
+        assertArrayEquals(json, written);
+    }
+}